@@ -5,6 +5,7 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
+import org.helitha.heartapigame.managers.RoundBuffer;
 import org.helitha.heartapigame.managers.ScreenManager;
 import org.helitha.heartapigame.services.FirebaseService;
 
@@ -16,6 +17,9 @@ public class Main extends Application {
 
     @Override
     public void start(Stage stage) throws IOException {
+        long startNs = System.nanoTime();
+        FirebaseService.initializeAsync();
+
         try {
             Font customFont = Font.loadFont(
                 getClass().getResourceAsStream("fonts/PressStart2P-Regular.ttf"), 
@@ -31,8 +35,6 @@ public class Main extends Application {
             e.printStackTrace();
         }
 
-        FirebaseService.getInstance().initialize();
-
         new ScreenManager(stage);
 
         FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("LoadingScreen.fxml"));
@@ -41,6 +43,13 @@ public class Main extends Application {
         stage.setTitle("Heart API Game");
         stage.setScene(scene);
         stage.show();
+        System.out.println("First frame shown " + (System.nanoTime() - startNs) / 1_000_000 + " ms after start");
+    }
+
+    @Override
+    public void stop() {
+        RoundBuffer.getInstance().saveSeenPuzzles();
+        FirebaseService.getInstance().close();
     }
 
     public static void main(String[] args) {
@@ -3,6 +3,7 @@ package org.helitha.heartapigame.controllers;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import org.helitha.heartapigame.managers.GameManager;
+import org.helitha.heartapigame.managers.RoundBuffer;
 import org.helitha.heartapigame.managers.ScreenManager;
 import org.helitha.heartapigame.managers.SoundManager;
 
@@ -27,6 +28,7 @@ public class DifficultyScreenController {
     public void initialize() {
         System.out.println("Difficulty screen loaded");
         SoundManager.getInstance().setupMuteButton(muteButton);
+        RoundBuffer.getInstance().fill();
     }
 
     @FXML
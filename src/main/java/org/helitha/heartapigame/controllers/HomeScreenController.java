@@ -6,6 +6,7 @@ import javafx.scene.control.Label;
 import org.helitha.heartapigame.managers.GameSession;
 import org.helitha.heartapigame.managers.ScreenManager;
 import org.helitha.heartapigame.managers.SoundManager;
+import org.helitha.heartapigame.managers.TokenManager;
 
 public class HomeScreenController {
 
@@ -73,6 +74,7 @@ public class HomeScreenController {
         SoundManager.getInstance().playClickSound();
         SoundManager.getInstance().stopBackgroundMusic();
         GameSession.getInstance().clearSession();
+        TokenManager.getInstance().clear();
         System.out.println("Logged out");
         ScreenManager.getInstance().switchScene("LoginScreen.fxml");
     }
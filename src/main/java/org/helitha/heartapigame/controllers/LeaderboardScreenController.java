@@ -4,24 +4,40 @@ import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.css.PseudoClass;
 import javafx.fxml.FXML;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ScrollBar;
 import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableRow;
 import javafx.scene.control.TableView;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.ToggleGroup;
 import org.helitha.heartapigame.managers.AsyncManager;
 import org.helitha.heartapigame.managers.GameManager;
 import org.helitha.heartapigame.managers.GameSession;
 import org.helitha.heartapigame.managers.ScreenManager;
 import org.helitha.heartapigame.managers.SoundManager;
+import org.helitha.heartapigame.managers.TaskPriority;
 import org.helitha.heartapigame.models.LeaderboardEntry;
+import org.helitha.heartapigame.models.LeaderboardPage;
+import org.helitha.heartapigame.models.LeaderboardWindow;
+import org.helitha.heartapigame.models.PendingScore;
 import org.helitha.heartapigame.services.FirebaseService;
 
-import java.util.Comparator;
-import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
 
 public class LeaderboardScreenController {
 
+    private static final int PAGE_SIZE = 25;
+    private static final double LOAD_MORE_THRESHOLD = 0.9;
+    private static final int WINDOW_TOP_K = 100;
+    private static final PseudoClass PENDING = PseudoClass.getPseudoClass("pending");
+
     @FXML
     private Label finalScoreLabel;
 
@@ -40,13 +56,46 @@ public class LeaderboardScreenController {
     @FXML
     private Button muteButton;
 
+    @FXML
+    private ToggleButton easyTab;
+
+    @FXML
+    private ToggleButton mediumTab;
+
+    @FXML
+    private ToggleButton hardTab;
+
+    @FXML
+    private ToggleButton allTimeTab;
+
+    @FXML
+    private ToggleButton weeklyTab;
+
+    @FXML
+    private ToggleButton dailyTab;
+
+    private final ObservableList<LeaderboardRow> rows = FXCollections.observableArrayList();
+    private final ToggleGroup difficultyTabs = new ToggleGroup();
+    private final ToggleGroup windowTabs = new ToggleGroup();
+    private String selectedDifficulty;
+    private LeaderboardWindow selectedWindow = LeaderboardWindow.ALL_TIME;
+    private LeaderboardPage.Cursor nextCursor;
+    private boolean loadingPage;
+    private boolean allPagesLoaded;
+    private long loadGeneration;
+    private String scoreText;
+    private boolean rankShown;
+    private PendingScore pendingScore;
+
     @FXML
     public void initialize() {
         int finalScore = GameManager.getInstance().getScore();
         String difficulty = GameManager.getInstance().getDifficulty();
         String playerName = GameSession.getInstance().getDisplayName();
 
-        finalScoreLabel.setText(playerName + "'s Score: " + finalScore + " (" + difficulty + ")");
+        scoreText = playerName + "'s Score: " + finalScore + " (" + difficulty + ")";
+        finalScoreLabel.setText(scoreText);
+        showRank();
         System.out.println("Leaderboard - Player: " + playerName + ", Score: " + finalScore);
 
         rankColumn.setCellValueFactory(cellData -> cellData.getValue().rankProperty().asObject());
@@ -54,28 +103,272 @@ public class LeaderboardScreenController {
         scoreColumn.setCellValueFactory(cellData -> cellData.getValue().scoreProperty().asObject());
 
         SoundManager.getInstance().setupMuteButton(muteButton);
-        loadAllScoresSorted();
+
+        leaderboardTable.setItems(rows);
+        leaderboardTable.setRowFactory(table -> new TableRow<>() {
+            @Override
+            protected void updateItem(LeaderboardRow row, boolean empty) {
+                super.updateItem(row, empty);
+                pseudoClassStateChanged(PENDING, !empty && row != null && row.isPending());
+            }
+        });
+        leaderboardTable.skinProperty().addListener((obs, oldSkin, newSkin) -> attachScrollListener());
+
+        easyTab.setToggleGroup(difficultyTabs);
+        mediumTab.setToggleGroup(difficultyTabs);
+        hardTab.setToggleGroup(difficultyTabs);
+        switch (difficulty) {
+            case GameManager.MEDIUM -> mediumTab.setSelected(true);
+            case GameManager.HARD -> hardTab.setSelected(true);
+            default -> easyTab.setSelected(true);
+        }
+        allTimeTab.setToggleGroup(windowTabs);
+        weeklyTab.setToggleGroup(windowTabs);
+        dailyTab.setToggleGroup(windowTabs);
+        allTimeTab.setSelected(true);
+
+        PendingScore lastScore = GameManager.getInstance().getLastScore();
+        if (lastScore != null && !lastScore.upload().isDone()) {
+            pendingScore = lastScore;
+            AsyncManager.getInstance().onComplete(
+                lastScore.upload(),
+                record -> reconcilePendingScore(),
+                error -> {
+                    System.err.println("Score upload failed: " + error.getMessage());
+                    rows.removeIf(LeaderboardRow::isOptimistic);
+                    renumberRows();
+                }
+            );
+        }
+        showBoard(difficulty, LeaderboardWindow.ALL_TIME);
     }
 
-    private void loadAllScoresSorted() {
+    private void reconcilePendingScore() {
+        for (LeaderboardRow row : rows) {
+            if (row.isOptimistic()) {
+                row.setPending(false);
+            }
+        }
+        leaderboardTable.refresh();
+        if (!selectedWindow.isRolling() && pendingScore.difficulty().equals(selectedDifficulty)) {
+            revalidateFirstPage();
+        }
+    }
+
+    private void showRank() {
+        if (rankShown) {
+            return;
+        }
+        GameManager game = GameManager.getInstance();
+        OptionalInt rank = FirebaseService.getInstance().getLeaderboardRank(game.getDifficulty(), game.getScore());
+        if (rank.isPresent()) {
+            rankShown = true;
+            finalScoreLabel.setText(scoreText + " - Rank #" + rank.getAsInt());
+        }
+    }
+
+    @FXML
+    private void handleEasyTab() {
+        selectTab(easyTab, GameManager.EASY);
+    }
+
+    @FXML
+    private void handleMediumTab() {
+        selectTab(mediumTab, GameManager.MEDIUM);
+    }
+
+    @FXML
+    private void handleHardTab() {
+        selectTab(hardTab, GameManager.HARD);
+    }
+
+    private void selectTab(ToggleButton tab, String difficulty) {
+        SoundManager.getInstance().playClickSound();
+        tab.setSelected(true);
+        if (!difficulty.equals(selectedDifficulty)) {
+            showBoard(difficulty, selectedWindow);
+        }
+    }
+
+    @FXML
+    private void handleAllTimeTab() {
+        selectWindowTab(allTimeTab, LeaderboardWindow.ALL_TIME);
+    }
+
+    @FXML
+    private void handleWeeklyTab() {
+        selectWindowTab(weeklyTab, LeaderboardWindow.WEEKLY);
+    }
+
+    @FXML
+    private void handleDailyTab() {
+        selectWindowTab(dailyTab, LeaderboardWindow.DAILY);
+    }
+
+    private void selectWindowTab(ToggleButton tab, LeaderboardWindow window) {
+        SoundManager.getInstance().playClickSound();
+        tab.setSelected(true);
+        if (window != selectedWindow) {
+            showBoard(selectedDifficulty, window);
+        }
+    }
+
+    private void showBoard(String difficulty, LeaderboardWindow window) {
+        selectedDifficulty = difficulty;
+        selectedWindow = window;
+        loadGeneration++;
+        rows.clear();
+        nextCursor = null;
+        loadingPage = false;
+        allPagesLoaded = false;
+
+        if (window.isRolling()) {
+            for (LeaderboardEntry entry : FirebaseService.getInstance()
+                    .getWindowTopScores(difficulty, window, WINDOW_TOP_K)) {
+                rows.add(new LeaderboardRow(rows.size() + 1, entry.getUsername(), entry.getScore()));
+            }
+            allPagesLoaded = true;
+            return;
+        }
+
+        Optional<LeaderboardPage> cached = FirebaseService.getInstance().getCachedScoresPage(difficulty, PAGE_SIZE);
+        if (cached.isEmpty()) {
+            loadNextPage();
+            return;
+        }
+
+        applyPage(cached.get());
+        if (!FirebaseService.getInstance().isScoresPageFresh(difficulty)) {
+            revalidateFirstPage();
+        }
+    }
+
+    private void revalidateFirstPage() {
+        String difficulty = selectedDifficulty;
+        long generation = loadGeneration;
         AsyncManager.getInstance().runAsync(
-            () -> {
-                List<LeaderboardEntry> allScores = FirebaseService.getInstance().getAllScores();
-                allScores.sort(Comparator.comparingInt(LeaderboardEntry::getScore).reversed());
-                return allScores;
+            TaskPriority.BACKGROUND,
+            () -> FirebaseService.getInstance().refreshScoresPage(difficulty, PAGE_SIZE),
+            page -> {
+                // Only swap in the fresh page while the user is still looking at the first one
+                if (generation != loadGeneration || loadingPage || rows.size() > PAGE_SIZE) {
+                    return;
+                }
+                rows.clear();
+                applyPage(page);
             },
-            allScores -> {
-                ObservableList<LeaderboardRow> rows = FXCollections.observableArrayList();
-                for (int i = 0; i < allScores.size(); i++) {
-                    LeaderboardEntry entry = allScores.get(i);
-                    rows.add(new LeaderboardRow(i + 1, entry.getUsername(), entry.getScore()));
+            error -> System.err.println("Error revalidating leaderboard: " + error.getMessage())
+        );
+    }
+
+    private void attachScrollListener() {
+        for (Node node : leaderboardTable.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar scrollBar && scrollBar.getOrientation() == Orientation.VERTICAL) {
+                scrollBar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= scrollBar.getMax() * LOAD_MORE_THRESHOLD) {
+                        loadNextPage();
+                    }
+                });
+            }
+        }
+    }
+
+    private void loadNextPage() {
+        if (loadingPage || allPagesLoaded) {
+            return;
+        }
+        loadingPage = true;
+
+        LeaderboardPage.Cursor cursor = nextCursor;
+        String difficulty = selectedDifficulty;
+        long generation = loadGeneration;
+        AsyncManager.getInstance().runAsync(
+            rows.isEmpty() ? TaskPriority.INTERACTIVE : TaskPriority.PREFETCH,
+            () -> FirebaseService.getInstance().getScoresPage(difficulty, cursor, PAGE_SIZE),
+            page -> {
+                if (generation != loadGeneration) {
+                    return;
                 }
-                leaderboardTable.setItems(rows);
+                loadingPage = false;
+                applyPage(page);
             },
-            error -> System.err.println("Error loading leaderboard: " + error.getMessage())
+            error -> {
+                if (generation == loadGeneration) {
+                    loadingPage = false;
+                }
+                System.err.println("Error loading leaderboard: " + error.getMessage());
+            }
         );
     }
 
+    private void applyPage(LeaderboardPage page) {
+        boolean hasOwnRow = rows.stream().anyMatch(LeaderboardRow::isOptimistic);
+        boolean showPending = hasOwnRow || isPendingScoreVisible();
+        for (LeaderboardEntry entry : page.entries()) {
+            // The optimistic row stands in for the player's older, lower best until the upload lands
+            if (showPending && isPendingPlayer(entry.getPlayerId(), entry.getUsername())
+                    && entry.getScore() <= pendingScore.score()) {
+                continue;
+            }
+            rows.add(new LeaderboardRow(entry.getPlayerId(), rows.size() + 1, entry.getUsername(),
+                    entry.getScore(), false));
+        }
+        nextCursor = page.next();
+        allPagesLoaded = !page.hasMore();
+        if (!hasOwnRow && isPendingScoreVisible()) {
+            insertPendingScore();
+        }
+        showRank();
+        if (page.hasMore() && rows.size() < PAGE_SIZE) {
+            loadNextPage();
+        }
+    }
+
+    private boolean isPendingScoreVisible() {
+        if (pendingScore == null || pendingScore.upload().isDone()
+                || selectedWindow.isRolling() || !pendingScore.difficulty().equals(selectedDifficulty)) {
+            return false;
+        }
+        // The older best may sit on a page that is not loaded yet, and this run would vanish on reconcile
+        Integer knownBest = FirebaseService.getInstance()
+                .getCachedPersonalBest(pendingScore.playerKey(), pendingScore.difficulty());
+        return knownBest == null || pendingScore.score() > knownBest;
+    }
+
+    private boolean isPendingPlayer(String playerId, String username) {
+        if (pendingScore.playerId() != null && !pendingScore.playerId().isEmpty() && playerId != null) {
+            return pendingScore.playerId().equals(playerId);
+        }
+        return pendingScore.username() != null && pendingScore.username().equals(username);
+    }
+
+    private void insertPendingScore() {
+        int position = rows.size();
+        for (int i = 0; i < rows.size(); i++) {
+            LeaderboardRow row = rows.get(i);
+            if (isPendingPlayer(row.getPlayerId(), row.nameProperty().get())) {
+                // A higher personal best is already on the board, this run does not change it
+                return;
+            }
+            if (row.scoreProperty().get() < pendingScore.score()) {
+                position = i;
+                break;
+            }
+        }
+        if (position == rows.size() && !allPagesLoaded) {
+            return;
+        }
+        rows.add(position, new LeaderboardRow(pendingScore.playerId(), position + 1, pendingScore.username(),
+                pendingScore.score(), true));
+        renumberRows();
+    }
+
+    private void renumberRows() {
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).rankProperty().set(i + 1);
+        }
+    }
+
     @FXML
     private void handleBackToHome() {
         ScreenManager.getInstance().switchScene("HomeScreen.fxml");
@@ -88,14 +381,40 @@ public class LeaderboardScreenController {
     }
 
     public static class LeaderboardRow {
+        private final String playerId;
         private final SimpleIntegerProperty rank;
         private final SimpleStringProperty name;
         private final SimpleIntegerProperty score;
+        private final boolean optimistic;
+        private boolean pending;
 
         public LeaderboardRow(int rank, String name, int score) {
+            this(null, rank, name, score, false);
+        }
+
+        public LeaderboardRow(String playerId, int rank, String name, int score, boolean optimistic) {
+            this.playerId = playerId;
             this.rank = new SimpleIntegerProperty(rank);
             this.name = new SimpleStringProperty(name);
             this.score = new SimpleIntegerProperty(score);
+            this.optimistic = optimistic;
+            this.pending = optimistic;
+        }
+
+        public String getPlayerId() {
+            return playerId;
+        }
+
+        public boolean isOptimistic() {
+            return optimistic;
+        }
+
+        public boolean isPending() {
+            return pending;
+        }
+
+        public void setPending(boolean pending) {
+            this.pending = pending;
         }
 
         public SimpleIntegerProperty rankProperty() {
@@ -6,12 +6,23 @@ import javafx.fxml.Initializable;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
 import org.helitha.heartapigame.managers.ScreenManager;
+import org.helitha.heartapigame.services.ApiService;
+import org.helitha.heartapigame.services.FirebaseService;
+import org.helitha.heartapigame.services.HttpTransport;
 
+import java.net.URI;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class LoadingScreenController implements Initializable {
 
+    private static final long WARM_UP_WAIT_MS = 1500;
+
     @FXML private ProgressBar progressBar;
     @FXML private Label statusLabel;
 
@@ -28,12 +39,23 @@ public class LoadingScreenController implements Initializable {
 
                 updateMessage("Initializing services...");
                 updateProgress(30, 100);
+                List<URI> hosts = new ArrayList<>(ApiService.getInstance().getWarmUpTargets());
+                hosts.addAll(FirebaseService.getWarmUpTargets());
+                CompletableFuture<Void> warmUp = HttpTransport.getInstance().warmUp(hosts);
                 Thread.sleep(290);
 
                 updateMessage("Loading assets...");
                 updateProgress(60, 100);
                 Thread.sleep(290);
 
+                updateMessage("Connecting...");
+                updateProgress(80, 100);
+                try {
+                    warmUp.get(WARM_UP_WAIT_MS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    System.out.println("Connection warm-up still running, continuing to login");
+                }
+
                 updateMessage("Finalizing setup...");
                 updateProgress(90, 100);
                 Thread.sleep(190);
@@ -1,9 +1,10 @@
 package org.helitha.heartapigame.controllers;
 
+import org.helitha.heartapigame.managers.AsyncManager;
 import org.helitha.heartapigame.managers.GameSession;
 import org.helitha.heartapigame.managers.ScreenManager;
 import org.helitha.heartapigame.managers.SoundManager;
-import org.helitha.heartapigame.models.AuthResult;
+import org.helitha.heartapigame.managers.TokenManager;
 import org.helitha.heartapigame.services.FirebaseService;
 
 import javafx.fxml.FXML;
@@ -21,6 +22,8 @@ public class LoginScreenController {
     @FXML private Button guestButton;
     @FXML private Button muteButton;
 
+    private boolean loginInFlight;
+
     @FXML
     public void initialize() {
         SoundManager.getInstance().playBackgroundMusic();
@@ -28,6 +31,8 @@ public class LoginScreenController {
 
         if (GameSession.getInstance().hasSavedSession() && GameSession.getInstance().isLoggedIn()) {
             System.out.println("Auto-login: Welcome back " + GameSession.getInstance().getDisplayName());
+            TokenManager.getInstance().start(GameSession.getInstance().getIdToken(),
+                    GameSession.getInstance().getRefreshToken());
             ScreenManager.getInstance().switchScene("HomeScreen.fxml");
         }
     }
@@ -43,23 +48,41 @@ public class LoginScreenController {
             return;
         }
 
-        AuthResult authResult = FirebaseService.getInstance().loginUser(email, password);
-
-        if (authResult != null) {
-            // Store complete authentication result including tokens
-            GameSession.getInstance().setUser(
-                authResult.getLocalId(),
-                authResult.getDisplayName() != null ? authResult.getDisplayName() : authResult.getEmail(),
-                authResult.getEmail(),
-                authResult.getIdToken(),
-                authResult.getRefreshToken()
-            );
-            System.out.println("Login successful! Welcome " + GameSession.getInstance().getDisplayName());
-            System.out.println("Identity tokens stored for session: ID token and refresh token");
-            ScreenManager.getInstance().switchScene("HomeScreen.fxml");
-        } else {
-            System.out.println("Login failed. Please check your credentials.");
+        if (loginInFlight) {
+            return;
         }
+        setLoginInFlight(true);
+
+        AsyncManager.getInstance().onComplete(
+            FirebaseService.getInstance().loginUserAsync(email, password),
+            authResult -> {
+                setLoginInFlight(false);
+                // Store complete authentication result including tokens
+                GameSession.getInstance().setUser(
+                    authResult.getLocalId(),
+                    authResult.getDisplayName() != null ? authResult.getDisplayName() : authResult.getEmail(),
+                    authResult.getEmail(),
+                    authResult.getIdToken(),
+                    authResult.getRefreshToken()
+                );
+                System.out.println("Login successful! Welcome " + GameSession.getInstance().getDisplayName());
+                System.out.println("Identity tokens stored for session: ID token and refresh token");
+                TokenManager.getInstance().start(authResult.getIdToken(), authResult.getRefreshToken());
+                ScreenManager.getInstance().switchScene("HomeScreen.fxml");
+            },
+            error -> {
+                setLoginInFlight(false);
+                System.out.println("Login failed. Please check your credentials.");
+            }
+        );
+    }
+
+    private void setLoginInFlight(boolean inFlight) {
+        loginInFlight = inFlight;
+        loginButton.setDisable(inFlight);
+        guestButton.setDisable(inFlight);
+        registerLink.setDisable(inFlight);
+        loginButton.setText(inFlight ? "Logging in..." : "Login");
     }
     
     @FXML
@@ -7,7 +7,6 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.AnchorPane;
 import javafx.util.Duration;
@@ -17,16 +16,22 @@ import org.helitha.heartapigame.managers.AsyncManager;
 import org.helitha.heartapigame.managers.GameLogicManager;
 import org.helitha.heartapigame.managers.GameManager;
 import org.helitha.heartapigame.managers.GameSession;
+import org.helitha.heartapigame.managers.RoundBuffer;
 import org.helitha.heartapigame.managers.ScreenManager;
 import org.helitha.heartapigame.managers.SoundManager;
 import org.helitha.heartapigame.models.GameData;
-import org.helitha.heartapigame.services.ApiService;
+import org.helitha.heartapigame.models.PendingScore;
+import org.helitha.heartapigame.models.PreparedRound;
 import org.helitha.heartapigame.services.FirebaseService;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 public class PlayScreenController {
 
+    // The countdown is paused while a round loads, so the fetch gets its own budget
+    private static final long ROUND_FETCH_BUDGET_SECONDS = 10;
+
     @FXML
     private Label scoreLabel;
 
@@ -77,6 +82,7 @@ public class PlayScreenController {
         System.out.println("Timer: " + timeRemaining + "s, Points/answer: " + GameManager.getInstance().getPointsForDifficulty());
         System.out.println("==================================");
 
+        RoundBuffer.getInstance().setImageViewport(imageView.getFitWidth(), imageView.getFitHeight());
         initializeCountdownTimer();
         loadNewRound();
     }
@@ -142,11 +148,11 @@ public class PlayScreenController {
         setButtonsEnabled(false);
         pauseCountdownTimer();
 
-        AsyncManager.getInstance().runAsync(
-            () -> ApiService.getInstance().fetchGameData(),
-            gameData -> {
-                System.out.println("Loaded game data: " + gameData);
-                displayRound(gameData);
+        AsyncManager.getInstance().track(RoundBuffer.getInstance().take(
+            Instant.now().plusSeconds(ROUND_FETCH_BUDGET_SECONDS),
+            round -> {
+                System.out.println("Loaded game data: " + round.gameData());
+                displayRound(round);
             },
             error -> {
                 System.err.println("Error loading game data: " + error.getMessage());
@@ -157,30 +163,15 @@ public class PlayScreenController {
                     .showError();
                 ScreenManager.getInstance().switchScene("DifficultyScreen.fxml");
             }
-        );
+        ));
     }
 
-    private void displayRound(GameData gameData) {
-        try {
-            Image image = new Image(gameData.question(), true);
-            imageView.setImage(image);
-
-            image.progressProperty().addListener((obs, oldVal, newVal) -> {
-                if (newVal.doubleValue() >= 1.0) {
-                    startCountdownTimer();
-                }
-            });
-
-            image.errorProperty().addListener((obs, oldVal, newVal) -> {
-                if (newVal) {
-                    System.err.println("Error loading image");
-                    startCountdownTimer();
-                }
-            });
-        } catch (Exception e) {
-            System.err.println("Error loading image: " + e.getMessage());
-            startCountdownTimer();
-        }
+    private void displayRound(PreparedRound round) {
+        GameData gameData = round.gameData();
+        imageView.setImage(round.image());
+        RoundBuffer.getInstance().markShown(round);
+        startCountdownTimer();
+
         String questionText = gameLogic.processGameData(gameData);
         questionLabel.setText(questionText);
         updateBackgroundForQuestionType(gameLogic.isAskingForHearts());
@@ -287,14 +278,14 @@ public class PlayScreenController {
     }
 
     private void saveScoreToFirebase() {
+        String playerId = GameSession.getInstance().getUserId();
         String playerName = GameSession.getInstance().getDisplayName();
         int finalScore = GameManager.getInstance().getScore();
         String difficulty = GameManager.getInstance().getDifficulty();
 
-        AsyncManager.getInstance().runAsync(() -> {
-            System.out.println("Saving score - Player: " + playerName + ", Score: " + finalScore + ", Difficulty: " + difficulty);
-            FirebaseService.getInstance().saveScore(playerName, finalScore);
-        });
+        System.out.println("Saving score - Player: " + playerName + ", Score: " + finalScore + ", Difficulty: " + difficulty);
+        GameManager.getInstance().setLastScore(new PendingScore(playerId, playerName, finalScore, difficulty,
+                FirebaseService.getInstance().saveScore(playerId, playerName, finalScore, difficulty)));
     }
 
     @FXML
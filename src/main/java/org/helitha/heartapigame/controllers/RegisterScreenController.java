@@ -6,6 +6,7 @@ import javafx.scene.control.Hyperlink;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import org.helitha.heartapigame.services.FirebaseService;
+import org.helitha.heartapigame.managers.AsyncManager;
 import org.helitha.heartapigame.managers.ScreenManager;
 import org.helitha.heartapigame.managers.SoundManager;
 
@@ -34,6 +35,8 @@ public class RegisterScreenController {
     @FXML
     private Button muteButton;
 
+    private boolean registrationInFlight;
+
     @FXML
     public void initialize() {
         SoundManager.getInstance().playBackgroundMusic();
@@ -62,15 +65,31 @@ public class RegisterScreenController {
             return;
         }
 
-        var userRecord = FirebaseService.getInstance().registerUser(email, password, displayName);
-
-        if (userRecord != null) {
-            System.out.println("Registration successful! User ID: " + userRecord.getUid());
-            System.out.println("Please login with your credentials.");
-            ScreenManager.getInstance().switchScene("LoginScreen.fxml");
-        } else {
-            System.out.println("Registration failed. Please try again.");
+        if (registrationInFlight) {
+            return;
         }
+        setRegistrationInFlight(true);
+
+        AsyncManager.getInstance().onComplete(
+            FirebaseService.getInstance().registerUserAsync(email, password, displayName),
+            userRecord -> {
+                setRegistrationInFlight(false);
+                System.out.println("Registration successful! User ID: " + userRecord.getUid());
+                System.out.println("Please login with your credentials.");
+                ScreenManager.getInstance().switchScene("LoginScreen.fxml");
+            },
+            error -> {
+                setRegistrationInFlight(false);
+                System.out.println("Registration failed. Please try again.");
+            }
+        );
+    }
+
+    private void setRegistrationInFlight(boolean inFlight) {
+        registrationInFlight = inFlight;
+        registerButton.setDisable(inFlight);
+        loginLink.setDisable(inFlight);
+        registerButton.setText(inFlight ? "Creating account..." : "Create Account");
     }
 
     @FXML
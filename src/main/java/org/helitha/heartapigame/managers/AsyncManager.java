@@ -2,20 +2,34 @@ package org.helitha.heartapigame.managers;
 
 import javafx.application.Platform;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 public class AsyncManager {
 
     private static AsyncManager instance;
+    private static final int MAX_CONCURRENT_TASKS = 8;
     private final ExecutorService executor;
+    private final PriorityScheduler scheduler;
+    private final Executor uiThread;
+    private final TaskScope applicationScope = new TaskScope("application");
+    private volatile TaskScope screenScope = new TaskScope("startup");
 
     private AsyncManager() {
-        this.executor = Executors.newCachedThreadPool(r -> {
-            Thread t = new Thread(r);
-            t.setDaemon(true);
-            return t;
-        });
+        this(Platform::runLater);
+    }
+
+    AsyncManager(Executor uiThread) {
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("async-", 1).factory());
+        this.scheduler = new PriorityScheduler(executor, MAX_CONCURRENT_TASKS);
+        this.uiThread = uiThread;
     }
 
     public static AsyncManager getInstance() {
@@ -25,29 +39,149 @@ public class AsyncManager {
         return instance;
     }
 
-    public <T> void runAsync(AsyncTask<T> task, Consumer<T> onSuccess, Consumer<Exception> onError) {
-        executor.submit(() -> {
+    public TaskScope enterScreen(String screen) {
+        TaskScope previous = screenScope;
+        screenScope = new TaskScope(screen);
+        int cancelled = previous.cancel();
+        if (cancelled > 0) {
+            System.out.println("Cancelled " + cancelled + " tasks left running by " + previous.getName());
+        }
+        return screenScope;
+    }
+
+    public TaskScope getScreenScope() {
+        return screenScope;
+    }
+
+    public TaskScope getApplicationScope() {
+        return applicationScope;
+    }
+
+    public TaskHandle track(TaskHandle handle) {
+        return screenScope.add(handle);
+    }
+
+    public <T> TaskHandle runAsync(AsyncTask<T> task, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        return runAsync(screenScope, TaskPriority.INTERACTIVE, task, onSuccess, onError);
+    }
+
+    public <T> TaskHandle runAsync(TaskPriority priority, AsyncTask<T> task, Consumer<T> onSuccess,
+                                   Consumer<Exception> onError) {
+        return runAsync(screenScope, priority, task, onSuccess, onError);
+    }
+
+    public <T> TaskHandle runAsync(TaskScope scope, TaskPriority priority, AsyncTask<T> task, Consumer<T> onSuccess,
+                                   Consumer<Exception> onError) {
+        TaskHandle handle = new TaskHandle();
+        Future<?> future = scheduler.submit(priority, () -> {
             try {
                 T result = task.execute();
-                Platform.runLater(() -> onSuccess.accept(result));
+                deliver(handle, () -> onSuccess.accept(result));
             } catch (Exception e) {
-                Platform.runLater(() -> onError.accept(e));
+                if (!handle.isCancelled()) {
+                    deliver(handle, () -> onError.accept(e));
+                }
             }
         });
+        handle.setOnCancel(() -> future.cancel(true));
+        return scope.add(handle);
     }
 
-    public void runAsync(Runnable task) {
-        executor.submit(task);
+    public TaskHandle runAsync(Runnable task) {
+        TaskHandle handle = new TaskHandle();
+        Future<?> future = scheduler.submit(TaskPriority.BACKGROUND, () -> {
+            try {
+                task.run();
+            } finally {
+                handle.finish();
+            }
+        });
+        handle.setOnCancel(() -> future.cancel(true));
+        return screenScope.add(handle);
     }
 
-    public void runAsync(Runnable task, Runnable onComplete) {
-        executor.submit(() -> {
+    public TaskHandle runAsync(Runnable task, Runnable onComplete) {
+        TaskHandle handle = new TaskHandle();
+        Future<?> future = scheduler.submit(TaskPriority.INTERACTIVE, () -> {
             task.run();
-            Platform.runLater(onComplete);
+            deliver(handle, onComplete);
         });
+        handle.setOnCancel(() -> future.cancel(true));
+        return screenScope.add(handle);
+    }
+
+    public TaskHandle schedule(long delayMs, Runnable onComplete) {
+        TaskHandle handle = new TaskHandle();
+        CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS)
+                .execute(() -> deliver(handle, onComplete));
+        return screenScope.add(handle);
+    }
+
+    public <T> CompletableFuture<T> supplyAsync(AsyncTask<T> task) {
+        return supplyAsync(TaskPriority.INTERACTIVE, task);
+    }
+
+    public <T> CompletableFuture<T> supplyAsync(TaskPriority priority, AsyncTask<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.execute();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, scheduler.executor(priority));
+    }
+
+    public Executor executor(TaskPriority priority) {
+        return scheduler.executor(priority);
+    }
+
+    public PriorityScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public String getStats() {
+        return scheduler.getStats();
+    }
+
+    public <T> TaskHandle onComplete(CompletionStage<T> stage, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        return onComplete(screenScope, stage, onSuccess, onError);
+    }
+
+    // Cancelling the handle only drops the callbacks, the stage itself belongs to the caller
+    public <T> TaskHandle onComplete(TaskScope scope, CompletionStage<T> stage, Consumer<T> onSuccess,
+                                     Consumer<Exception> onError) {
+        TaskHandle handle = scope.add(new TaskHandle());
+        stage.whenComplete((result, error) -> {
+            if (error == null) {
+                deliver(handle, () -> onSuccess.accept(result));
+            } else {
+                Exception exception = unwrap(error);
+                deliver(handle, () -> onError.accept(exception));
+            }
+        });
+        return handle;
+    }
+
+    private void deliver(TaskHandle handle, Runnable callback) {
+        uiThread.execute(() -> {
+            if (handle.finish()) {
+                callback.run();
+            }
+        });
+    }
+
+    private static Exception unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception exception ? exception : new ExecutionException(cause);
     }
 
     public void shutdown() {
+        applicationScope.cancel();
+        screenScope.cancel();
         executor.shutdown();
     }
 
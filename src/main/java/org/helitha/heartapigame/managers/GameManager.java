@@ -4,6 +4,8 @@ import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
+import org.helitha.heartapigame.models.PendingScore;
+
 public class GameManager {
 
     private static GameManager instance;
@@ -11,6 +13,7 @@ public class GameManager {
     private final IntegerProperty score = new SimpleIntegerProperty(0);
     private final StringProperty difficulty = new SimpleStringProperty(EASY);
     private final IntegerProperty timerValue = new SimpleIntegerProperty(EASY_TIMER);
+    private PendingScore lastScore;
 
     public static final String EASY = "Easy";
     public static final String MEDIUM = "Medium";
@@ -78,4 +81,7 @@ public class GameManager {
 
     public void setScore(int value) { score.set(value); }
     public void setTimerValue(int value) { timerValue.set(value); }
+
+    public PendingScore getLastScore() { return lastScore; }
+    public void setLastScore(PendingScore value) { lastScore = value; }
 }
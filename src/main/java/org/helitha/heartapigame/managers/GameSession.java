@@ -62,6 +62,15 @@ public class GameSession {
         saveSession();
     }
 
+    public void updateTokens(String idToken, String refreshToken) {
+        if (isGuest || userId == null) {
+            return;
+        }
+        this.idToken = idToken;
+        this.refreshToken = refreshToken;
+        saveSession();
+    }
+
     private void saveSession() {
         if (!isGuest && userId != null) {
             prefs.put(PREF_USER_ID, userId);
@@ -0,0 +1,155 @@
+package org.helitha.heartapigame.managers;
+
+import javafx.scene.image.Image;
+import org.helitha.heartapigame.models.Puzzle;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class ImageCache {
+
+    private static ImageCache instance;
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Image> images = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Image>> pending = new HashMap<>();
+    private long currentBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private ImageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public static ImageCache getInstance() {
+        if (instance == null) {
+            instance = new ImageCache(DEFAULT_MAX_BYTES);
+        }
+        return instance;
+    }
+
+    public CompletableFuture<Image> getImage(Puzzle puzzle, double width, double height, TaskPriority priority) {
+        String key = cacheKey(puzzle.gameData().question(), width, height);
+        return lookup(key, () -> CompletableFuture.completedFuture(puzzle.imageBytes()), width, height, priority);
+    }
+
+    private static String cacheKey(String source, double width, double height) {
+        return source + "@" + Math.round(width) + "x" + Math.round(height);
+    }
+
+    private CompletableFuture<Image> lookup(String key, ImageBytesLoader loader, double width, double height,
+                                            TaskPriority priority) {
+        CompletableFuture<Image> future;
+        synchronized (this) {
+            Image cached = images.get(key);
+            if (cached != null) {
+                hits++;
+                return CompletableFuture.completedFuture(cached);
+            }
+            future = pending.get(key);
+            if (future != null) {
+                hits++;
+                return future;
+            }
+            misses++;
+            future = new CompletableFuture<>();
+            pending.put(key, future);
+        }
+
+        CompletableFuture<Image> result = future;
+        loader.load()
+                .thenApplyAsync(bytes -> decode(bytes, width, height), AsyncManager.getInstance().executor(priority))
+                .whenComplete((image, error) -> {
+                    synchronized (this) {
+                        pending.remove(key);
+                        if (error == null) {
+                            put(key, image);
+                        }
+                    }
+                    if (error == null) {
+                        result.complete(image);
+                    } else {
+                        result.completeExceptionally(error);
+                    }
+                });
+        return result;
+    }
+
+    private Image decode(byte[] bytes, double width, double height) {
+        Image image = new Image(new ByteArrayInputStream(bytes), width, height, true, true);
+        if (image.isError()) {
+            throw new CompletionException(new IOException("Failed to decode puzzle image", image.getException()));
+        }
+        return image;
+    }
+
+    private void put(String key, Image image) {
+        long size = sizeOf(image);
+        if (size > maxBytes) {
+            return;
+        }
+
+        Image previous = images.put(key, image);
+        if (previous != null) {
+            currentBytes -= sizeOf(previous);
+        }
+        currentBytes += size;
+
+        Iterator<Map.Entry<String, Image>> eldest = images.entrySet().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Image> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                continue;
+            }
+            currentBytes -= sizeOf(entry.getValue());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private static long sizeOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    public synchronized void clear() {
+        images.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public synchronized String getStats() {
+        return "images=" + images.size()
+                + ", bytes=" + currentBytes + "/" + maxBytes
+                + ", hits=" + hits
+                + ", misses=" + misses
+                + ", evictions=" + evictions;
+    }
+
+    @FunctionalInterface
+    private interface ImageBytesLoader {
+        CompletableFuture<byte[]> load();
+    }
+}
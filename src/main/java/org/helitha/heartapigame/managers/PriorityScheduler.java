@@ -0,0 +1,158 @@
+package org.helitha.heartapigame.managers;
+
+import org.helitha.heartapigame.services.LatencyTracker;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+public class PriorityScheduler {
+
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final Map<TaskPriority, Lane> lanes = new EnumMap<>(TaskPriority.class);
+    private int running;
+
+    public PriorityScheduler(Executor executor, int maxConcurrency) {
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        for (TaskPriority priority : TaskPriority.values()) {
+            lanes.put(priority, new Lane(Math.min(maxConcurrency, priority.getConcurrencyLimit())));
+        }
+    }
+
+    public Future<?> submit(TaskPriority priority, Runnable task) {
+        Lane lane = lanes.get(priority);
+        QueuedTask queued = new QueuedTask(lane, task);
+        synchronized (this) {
+            lane.queue.addLast(queued);
+            lane.submitted++;
+        }
+        dispatch();
+        return queued;
+    }
+
+    public Executor executor(TaskPriority priority) {
+        return task -> submit(priority, task);
+    }
+
+    private void dispatch() {
+        while (true) {
+            QueuedTask next = null;
+            synchronized (this) {
+                if (running >= maxConcurrency) {
+                    return;
+                }
+                // Lanes are scanned in declaration order, but every waiting lane with nothing running
+                // holds one slot back from the lanes above it, so interactive bursts cannot starve the rest
+                int starvedBelow = 0;
+                for (Lane lane : lanes.values()) {
+                    if (lane.isStarved()) {
+                        starvedBelow++;
+                    }
+                }
+                for (Lane lane : lanes.values()) {
+                    if (lane.isStarved()) {
+                        starvedBelow--;
+                    }
+                    if (lane.running < lane.limit && !lane.queue.isEmpty() && running + starvedBelow < maxConcurrency) {
+                        next = lane.queue.pollFirst();
+                        lane.running++;
+                        running++;
+                        lane.waits.record((System.nanoTime() - next.enqueuedNs) / 1_000_000);
+                        break;
+                    }
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            QueuedTask task = next;
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    release(task.lane);
+                }
+            });
+        }
+    }
+
+    private void release(Lane lane) {
+        synchronized (this) {
+            lane.running--;
+            lane.completed++;
+            running--;
+        }
+        dispatch();
+    }
+
+    private synchronized void dequeue(QueuedTask task) {
+        if (task.lane.queue.remove(task)) {
+            task.lane.cancelled++;
+        }
+    }
+
+    public synchronized int getQueueDepth(TaskPriority priority) {
+        return lanes.get(priority).queue.size();
+    }
+
+    public synchronized int getRunning(TaskPriority priority) {
+        return lanes.get(priority).running;
+    }
+
+    public LatencyTracker getWaitTimes(TaskPriority priority) {
+        return lanes.get(priority).waits;
+    }
+
+    public synchronized String getStats() {
+        StringBuilder stats = new StringBuilder("running=" + running + "/" + maxConcurrency);
+        lanes.forEach((priority, lane) -> stats.append(" | ").append(priority.name().toLowerCase())
+                .append(": queued=").append(lane.queue.size())
+                .append(", running=").append(lane.running).append("/").append(lane.limit)
+                .append(", submitted=").append(lane.submitted)
+                .append(", completed=").append(lane.completed)
+                .append(", cancelled=").append(lane.cancelled)
+                .append(", wait ").append(lane.waits));
+        return stats.toString();
+    }
+
+    private static final class Lane {
+        private final int limit;
+        private final Deque<QueuedTask> queue = new ArrayDeque<>();
+        private final LatencyTracker waits = new LatencyTracker(200);
+        private int running;
+        private long submitted;
+        private long completed;
+        private long cancelled;
+
+        private Lane(int limit) {
+            this.limit = limit;
+        }
+
+        private boolean isStarved() {
+            return running == 0 && limit > 0 && !queue.isEmpty();
+        }
+    }
+
+    private final class QueuedTask extends FutureTask<Void> {
+        private final Lane lane;
+        private final long enqueuedNs = System.nanoTime();
+
+        private QueuedTask(Lane lane, Runnable task) {
+            super(task, null);
+            this.lane = lane;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                dequeue(this);
+            }
+        }
+    }
+}
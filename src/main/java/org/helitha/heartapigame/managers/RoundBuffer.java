@@ -0,0 +1,389 @@
+package org.helitha.heartapigame.managers;
+
+import javafx.stage.Screen;
+import org.helitha.heartapigame.models.PreparedRound;
+import org.helitha.heartapigame.models.Puzzle;
+import org.helitha.heartapigame.services.ApiService;
+import org.helitha.heartapigame.services.BloomFilter;
+import org.helitha.heartapigame.services.PuzzleSource;
+
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+public class RoundBuffer {
+
+    private static RoundBuffer instance;
+    private static final int DEFAULT_CAPACITY = 3;
+    private static final Duration PREFETCH_BUDGET = Duration.ofSeconds(20);
+    private static final double DEFAULT_IMAGE_WIDTH = 350;
+    private static final Path SEEN_PUZZLES_PATH = Path.of("data", "seen-puzzles.bloom");
+    private static final int SEEN_PUZZLES_CAPACITY = 10_000;
+    private static final double SEEN_PUZZLES_FALSE_POSITIVE_RATE = 0.01;
+    private static final int MAX_DUPLICATE_REFETCHES = 2;
+    private static final int SEEN_PUZZLES_SAVE_BATCH = 10;
+    private static final double DEFAULT_IMAGE_HEIGHT = 250;
+    private static final Duration OFFLINE_FALLBACK_DELAY = Duration.ofMillis(1500);
+
+    private final int capacity;
+    private final PuzzleSource source;
+    private final BloomFilter seenPuzzles;
+    private final AsyncManager async;
+    private final Duration offlineFallbackDelay;
+    private final Deque<PreparedRound> readyRounds = new ArrayDeque<>();
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private final Set<CompletableFuture<PreparedRound>> inFlight = new HashSet<>();
+    private long hits;
+    private long misses;
+    private long offlineServed;
+    private long duplicatesSkipped;
+    private int unsavedSeenPuzzles;
+    private double imageWidth;
+    private double imageHeight;
+
+    RoundBuffer(int capacity, PuzzleSource source, BloomFilter seenPuzzles, AsyncManager async,
+                Duration offlineFallbackDelay) {
+        this.capacity = capacity;
+        this.source = source;
+        this.seenPuzzles = seenPuzzles;
+        this.async = async;
+        this.offlineFallbackDelay = offlineFallbackDelay;
+        this.imageWidth = DEFAULT_IMAGE_WIDTH;
+        this.imageHeight = DEFAULT_IMAGE_HEIGHT;
+    }
+
+    public static RoundBuffer getInstance() {
+        if (instance == null) {
+            instance = new RoundBuffer(DEFAULT_CAPACITY, ApiService.getInstance(),
+                    BloomFilter.load(SEEN_PUZZLES_PATH, SEEN_PUZZLES_CAPACITY, SEEN_PUZZLES_FALSE_POSITIVE_RATE),
+                    AsyncManager.getInstance(), OFFLINE_FALLBACK_DELAY);
+            instance.setImageViewport(DEFAULT_IMAGE_WIDTH, DEFAULT_IMAGE_HEIGHT);
+        }
+        return instance;
+    }
+
+    public synchronized void setImageViewport(double width, double height) {
+        double scale = Screen.getPrimary().getOutputScaleX();
+        this.imageWidth = Math.ceil(width * scale);
+        this.imageHeight = Math.ceil(height * scale);
+    }
+
+    public void fill() {
+        fill(Instant.now().plus(PREFETCH_BUDGET));
+    }
+
+    private void fill(Instant deadline) {
+        List<CompletableFuture<PreparedRound>> started = new ArrayList<>();
+        synchronized (this) {
+            while (readyRounds.size() + inFlight.size() < capacity) {
+                CompletableFuture<PreparedRound> future = prepareRoundAsync(deadline);
+                inFlight.add(future);
+                started.add(future);
+            }
+        }
+        for (CompletableFuture<PreparedRound> future : started) {
+            async.onComplete(
+                async.getApplicationScope(),
+                future,
+                round -> onRoundPrepared(future, round),
+                error -> onRoundFailed(future, error)
+            );
+        }
+    }
+
+    public TaskHandle take(Instant deadline, Consumer<PreparedRound> onReady, Consumer<Exception> onError) {
+        PreparedRound round;
+        Waiter waiter = null;
+        TaskHandle handle = new TaskHandle();
+        synchronized (this) {
+            round = readyRounds.pollFirst();
+            if (round != null) {
+                hits++;
+            } else {
+                misses++;
+                waiter = new Waiter(handle, onReady, onError);
+                waiters.addLast(waiter);
+            }
+        }
+        System.out.println("Round buffer " + (round != null ? "hit" : "miss") + " - " + getStats()
+                + " | image cache " + ImageCache.getInstance().getStats()
+                + " | async " + async.getStats());
+
+        if (round != null) {
+            handle.finish();
+            fill();
+            onReady.accept(round);
+        } else {
+            Waiter pending = waiter;
+            handle.setOnCancel(() -> cancelWaiter(pending));
+            fill(deadline);
+            // The pack is only a stand-in, so a healthy source gets a head start before it is used
+            if (source.isAvailable()) {
+                async.schedule(offlineFallbackDelay.toMillis(), () -> serveOfflineRound(pending));
+            } else {
+                serveOfflineRound(pending);
+            }
+            long delayMs = Math.max(0, Duration.between(Instant.now(), deadline).toMillis());
+            async.schedule(delayMs, () -> expireWaiter(pending));
+        }
+        return handle;
+    }
+
+    private synchronized void cancelWaiter(Waiter waiter) {
+        if (waiters.remove(waiter)) {
+            System.out.println("Round request cancelled - " + getStats());
+        }
+    }
+
+    private void expireWaiter(Waiter waiter) {
+        synchronized (this) {
+            if (!waiters.remove(waiter)) {
+                return;
+            }
+        }
+        waiter.fail(new TimeoutException("No round was ready before the deadline"));
+    }
+
+    private CompletableFuture<PreparedRound> prepareRoundAsync(Instant deadline) {
+        AtomicReference<CompletableFuture<Puzzle>> currentFetch = new AtomicReference<>();
+        CompletableFuture<PreparedRound> round = fetchUniquePuzzle(deadline, 0, currentFetch)
+                .thenCompose(this::loadRound);
+        round.whenComplete((result, error) -> {
+            if (error instanceof CancellationException) {
+                currentFetch.get().cancel(true);
+            }
+        });
+        return round;
+    }
+
+    private CompletableFuture<Puzzle> fetchUniquePuzzle(Instant deadline, int refetches,
+                                                        AtomicReference<CompletableFuture<Puzzle>> currentFetch) {
+        CompletableFuture<Puzzle> fetch = source.fetchPuzzleAsync(deadline);
+        currentFetch.set(fetch);
+        return fetch.thenCompose(puzzle -> {
+            // Redrawing from the pack is free, but refetching a live puzzle while the API is down only burns calls
+            if (!puzzle.offline() && !source.isAvailable()) {
+                return CompletableFuture.completedFuture(puzzle);
+            }
+            if (seenPuzzles.mightContain(contentHash(puzzle.imageBytes())) && refetches < MAX_DUPLICATE_REFETCHES
+                    && Instant.now().isBefore(deadline)) {
+                synchronized (this) {
+                    duplicatesSkipped++;
+                }
+                System.out.println("Skipping already seen puzzle, refetching");
+                return fetchUniquePuzzle(deadline, refetches + 1, currentFetch);
+            }
+            return CompletableFuture.completedFuture(puzzle);
+        });
+    }
+
+    private static byte[] contentHash(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private CompletableFuture<PreparedRound> loadRound(Puzzle puzzle) {
+        double width;
+        double height;
+        TaskPriority priority;
+        synchronized (this) {
+            width = imageWidth;
+            height = imageHeight;
+            // A player is staring at an empty board, so this decode should jump ahead of prefetches
+            priority = waiters.isEmpty() ? TaskPriority.PREFETCH : TaskPriority.INTERACTIVE;
+        }
+        return ImageCache.getInstance().getImage(puzzle, width, height, priority)
+                .thenApply(image -> new PreparedRound(puzzle.gameData(), image, contentHash(puzzle.imageBytes())));
+    }
+
+    // Buffered rounds the player never reaches stay unseen, so only displayed puzzles are recorded
+    public void markShown(PreparedRound round) {
+        seenPuzzles.add(round.contentHash());
+        boolean save;
+        synchronized (this) {
+            save = ++unsavedSeenPuzzles >= SEEN_PUZZLES_SAVE_BATCH;
+            if (save) {
+                unsavedSeenPuzzles = 0;
+            }
+        }
+        if (save) {
+            async.executor(TaskPriority.BACKGROUND)
+                    .execute(() -> seenPuzzles.save(SEEN_PUZZLES_PATH));
+        }
+    }
+
+    public void saveSeenPuzzles() {
+        synchronized (this) {
+            if (unsavedSeenPuzzles == 0) {
+                return;
+            }
+            unsavedSeenPuzzles = 0;
+        }
+        seenPuzzles.save(SEEN_PUZZLES_PATH);
+    }
+
+    private void serveOfflineRound(Waiter waiter) {
+        synchronized (this) {
+            if (!waiters.contains(waiter)) {
+                return;
+            }
+        }
+        Optional<Puzzle> offline = unseenOfflinePuzzle();
+        if (offline.isEmpty()) {
+            return;
+        }
+
+        async.onComplete(
+            async.getApplicationScope(),
+            loadRound(offline.get()),
+            round -> {
+                synchronized (this) {
+                    if (!waiters.remove(waiter)) {
+                        return;
+                    }
+                    offlineServed++;
+                }
+                System.out.println("Round served from offline pack while live fetch is pending");
+                waiter.ready(round);
+            },
+            error -> System.err.println("Offline round failed: " + error.getMessage())
+        );
+    }
+
+    // A small pack is seen sooner or later, so a repeat is still served when no unseen draw turns up
+    private Optional<Puzzle> unseenOfflinePuzzle() {
+        Optional<Puzzle> repeat = Optional.empty();
+        for (int draws = 0; draws <= MAX_DUPLICATE_REFETCHES; draws++) {
+            Optional<Puzzle> candidate = source.offlinePuzzle();
+            if (candidate.isEmpty()) {
+                break;
+            }
+            if (!seenPuzzles.mightContain(contentHash(candidate.get().imageBytes()))) {
+                return candidate;
+            }
+            synchronized (this) {
+                duplicatesSkipped++;
+            }
+            if (repeat.isEmpty()) {
+                repeat = candidate;
+            }
+        }
+        return repeat;
+    }
+
+    private void onRoundPrepared(CompletableFuture<PreparedRound> future, PreparedRound round) {
+        Waiter waiter;
+        synchronized (this) {
+            if (!inFlight.remove(future)) {
+                return;
+            }
+            waiter = waiters.pollFirst();
+            if (waiter == null) {
+                readyRounds.addLast(round);
+            }
+        }
+
+        if (waiter != null) {
+            waiter.ready(round);
+            fill();
+        }
+    }
+
+    private void onRoundFailed(CompletableFuture<PreparedRound> future, Exception error) {
+        Waiter waiter;
+        synchronized (this) {
+            if (!inFlight.remove(future)) {
+                return;
+            }
+            waiter = waiters.pollFirst();
+        }
+        System.err.println("Round prefetch failed: " + error.getMessage());
+
+        if (waiter != null) {
+            waiter.fail(error);
+        }
+    }
+
+    public synchronized void clear() {
+        for (CompletableFuture<PreparedRound> future : inFlight) {
+            future.cancel(true);
+        }
+        inFlight.clear();
+        readyRounds.clear();
+        waiters.clear();
+    }
+
+    public synchronized int getDepth() {
+        return readyRounds.size();
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getOfflineServed() {
+        return offlineServed;
+    }
+
+    public synchronized long getDuplicatesSkipped() {
+        return duplicatesSkipped;
+    }
+
+    public synchronized String getStats() {
+        return "depth=" + readyRounds.size() + "/" + capacity
+                + ", inFlight=" + inFlight.size()
+                + ", hits=" + hits
+                + ", misses=" + misses
+                + ", offline=" + offlineServed
+                + ", duplicatesSkipped=" + duplicatesSkipped;
+    }
+
+    private static final class Waiter {
+        private final TaskHandle handle;
+        private final Consumer<PreparedRound> onReady;
+        private final Consumer<Exception> onError;
+
+        private Waiter(TaskHandle handle, Consumer<PreparedRound> onReady, Consumer<Exception> onError) {
+            this.handle = handle;
+            this.onReady = onReady;
+            this.onError = onError;
+        }
+
+        void ready(PreparedRound round) {
+            if (handle.finish()) {
+                onReady.accept(round);
+            }
+        }
+
+        void fail(Exception error) {
+            if (handle.finish()) {
+                onError.accept(error);
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ public class ScreenManager {
     }
 
     public void switchScene(String fxmlFile) {
+        AsyncManager.getInstance().enterScreen(fxmlFile);
         try {
             FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource(fxmlFile));
             Parent root = fxmlLoader.load();
@@ -0,0 +1,47 @@
+package org.helitha.heartapigame.managers;
+
+import java.util.concurrent.CompletableFuture;
+
+public class TaskHandle {
+
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private volatile Runnable onCancel;
+
+    public TaskHandle() {
+    }
+
+    public TaskHandle(Runnable onCancel) {
+        this.onCancel = onCancel;
+    }
+
+    void setOnCancel(Runnable onCancel) {
+        this.onCancel = onCancel;
+    }
+
+    public boolean cancel() {
+        if (!completion.cancel(false)) {
+            return false;
+        }
+        Runnable action = onCancel;
+        if (action != null) {
+            action.run();
+        }
+        return true;
+    }
+
+    boolean finish() {
+        return completion.complete(null);
+    }
+
+    void whenDone(Runnable action) {
+        completion.whenComplete((result, error) -> action.run());
+    }
+
+    public boolean isCancelled() {
+        return completion.isCancelled();
+    }
+
+    public boolean isDone() {
+        return completion.isDone();
+    }
+}
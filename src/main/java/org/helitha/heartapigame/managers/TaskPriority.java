@@ -0,0 +1,17 @@
+package org.helitha.heartapigame.managers;
+
+public enum TaskPriority {
+    INTERACTIVE(8),
+    PREFETCH(4),
+    BACKGROUND(2);
+
+    private final int concurrencyLimit;
+
+    TaskPriority(int concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    public int getConcurrencyLimit() {
+        return Integer.getInteger("heartapi.async." + name().toLowerCase() + ".limit", concurrencyLimit);
+    }
+}
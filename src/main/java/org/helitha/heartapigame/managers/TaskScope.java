@@ -0,0 +1,61 @@
+package org.helitha.heartapigame.managers;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class TaskScope {
+
+    private final String name;
+    private final Set<TaskHandle> handles = new HashSet<>();
+    private boolean cancelled;
+
+    public TaskScope(String name) {
+        this.name = name;
+    }
+
+    public TaskHandle add(TaskHandle handle) {
+        synchronized (this) {
+            if (!cancelled) {
+                handles.add(handle);
+                handle.whenDone(() -> remove(handle));
+                return handle;
+            }
+        }
+        handle.cancel();
+        return handle;
+    }
+
+    private synchronized void remove(TaskHandle handle) {
+        handles.remove(handle);
+    }
+
+    public int cancel() {
+        List<TaskHandle> running;
+        synchronized (this) {
+            cancelled = true;
+            running = new ArrayList<>(handles);
+            handles.clear();
+        }
+        int count = 0;
+        for (TaskHandle handle : running) {
+            if (handle.cancel()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    public synchronized int size() {
+        return handles.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+}
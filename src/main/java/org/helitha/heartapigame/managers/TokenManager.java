@@ -0,0 +1,172 @@
+package org.helitha.heartapigame.managers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javafx.application.Platform;
+import org.helitha.heartapigame.models.TokenGrant;
+import org.helitha.heartapigame.services.FirebaseService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class TokenManager {
+
+    private static TokenManager instance;
+    private static final Duration REFRESH_MARGIN = Duration.ofMinutes(5);
+    private static final Duration EXPIRY_SKEW = Duration.ofSeconds(30);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ScheduledExecutorService scheduler;
+    private String idToken;
+    private String refreshToken;
+    private Instant expiresAt = Instant.EPOCH;
+    private CompletableFuture<String> refreshInFlight;
+    private ScheduledFuture<?> scheduledRefresh;
+    private long generation;
+    private long refreshCount;
+
+    private TokenManager() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "token-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static TokenManager getInstance() {
+        if (instance == null) {
+            instance = new TokenManager();
+        }
+        return instance;
+    }
+
+    public synchronized void start(String idToken, String refreshToken) {
+        cancelScheduledRefresh();
+        generation++;
+        this.idToken = idToken;
+        this.refreshToken = refreshToken;
+        this.expiresAt = idToken != null ? readExpiry(idToken) : Instant.EPOCH;
+        this.refreshInFlight = null;
+
+        if (refreshToken == null) {
+            System.out.println("No refresh token for this session, token refresh disabled");
+            return;
+        }
+        System.out.println("ID token valid until " + expiresAt);
+        scheduleRefresh(Duration.between(Instant.now(), expiresAt.minus(REFRESH_MARGIN)));
+    }
+
+    public synchronized void clear() {
+        cancelScheduledRefresh();
+        generation++;
+        idToken = null;
+        refreshToken = null;
+        expiresAt = Instant.EPOCH;
+        refreshInFlight = null;
+    }
+
+    public CompletableFuture<String> getIdTokenAsync() {
+        synchronized (this) {
+            if (idToken != null && Instant.now().plus(EXPIRY_SKEW).isBefore(expiresAt)) {
+                return CompletableFuture.completedFuture(idToken);
+            }
+        }
+        return refresh();
+    }
+
+    public synchronized CompletableFuture<String> refresh() {
+        if (refreshInFlight != null) {
+            return refreshInFlight;
+        }
+        if (refreshToken == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No refresh token for this session"));
+        }
+
+        long refreshGeneration = generation;
+        CompletableFuture<String> refresh = FirebaseService.getInstance().refreshIdTokenAsync(refreshToken)
+                .thenApply(grant -> onRefreshed(refreshGeneration, grant));
+        refreshInFlight = refresh;
+        refresh.whenComplete((token, error) -> onRefreshCompleted(refresh, refreshGeneration, error));
+        return refresh;
+    }
+
+    private synchronized String onRefreshed(long refreshGeneration, TokenGrant grant) {
+        if (refreshGeneration != generation) {
+            throw new CompletionException(new IllegalStateException("Session changed during token refresh"));
+        }
+
+        idToken = grant.idToken();
+        refreshToken = grant.refreshToken();
+        expiresAt = Instant.now().plusSeconds(grant.expiresInSeconds());
+        refreshCount++;
+        System.out.println("ID token refreshed, valid until " + expiresAt + " (refresh #" + refreshCount + ")");
+
+        String newIdToken = grant.idToken();
+        String newRefreshToken = grant.refreshToken();
+        Platform.runLater(() -> GameSession.getInstance().updateTokens(newIdToken, newRefreshToken));
+        scheduleRefresh(Duration.between(Instant.now(), expiresAt.minus(REFRESH_MARGIN)));
+        return newIdToken;
+    }
+
+    private synchronized void onRefreshCompleted(CompletableFuture<String> refresh, long refreshGeneration,
+                                                 Throwable error) {
+        if (refreshInFlight == refresh) {
+            refreshInFlight = null;
+        }
+        if (error == null || refreshGeneration != generation) {
+            return;
+        }
+
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof IllegalStateException) {
+            System.err.println("Token refresh rejected, sign in again to restore the session: " + cause.getMessage());
+            refreshToken = null;
+            return;
+        }
+        System.err.println("Token refresh failed, retrying in " + RETRY_DELAY.toSeconds() + "s: " + cause.getMessage());
+        scheduleRefresh(RETRY_DELAY);
+    }
+
+    private void scheduleRefresh(Duration delay) {
+        cancelScheduledRefresh();
+        long delayMs = Math.max(0, delay.toMillis());
+        scheduledRefresh = scheduler.schedule(this::refresh, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelScheduledRefresh() {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+            scheduledRefresh = null;
+        }
+    }
+
+    private Instant readExpiry(String jwt) {
+        try {
+            String[] parts = jwt.split("\\.");
+            if (parts.length < 2) {
+                return Instant.EPOCH;
+            }
+            JsonNode claims = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1]));
+            return Instant.ofEpochSecond(claims.path("exp").asLong(0));
+        } catch (Exception e) {
+            System.err.println("Could not read ID token expiry: " + e.getMessage());
+            return Instant.EPOCH;
+        }
+    }
+
+    public synchronized Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public synchronized long getRefreshCount() {
+        return refreshCount;
+    }
+}
@@ -1,14 +1,24 @@
 package org.helitha.heartapigame.models;
 
 public class LeaderboardEntry {
+    private String playerId;
     private String username;
     private int score;
 
     public LeaderboardEntry(String username, int score) {
+        this(null, username, score);
+    }
+
+    public LeaderboardEntry(String playerId, String username, int score) {
+        this.playerId = playerId;
         this.username = username;
         this.score = score;
     }
 
+    public String getPlayerId() {
+        return playerId;
+    }
+
     public String getUsername() {
         return username;
     }
@@ -0,0 +1,13 @@
+package org.helitha.heartapigame.models;
+
+import java.util.List;
+
+public record LeaderboardPage(List<LeaderboardEntry> entries, Cursor next) {
+
+    public boolean hasMore() {
+        return next != null;
+    }
+
+    public record Cursor(long score, String documentId) {
+    }
+}
@@ -0,0 +1,23 @@
+package org.helitha.heartapigame.models;
+
+import java.time.Duration;
+
+public enum LeaderboardWindow {
+    ALL_TIME(null),
+    WEEKLY(Duration.ofDays(7)),
+    DAILY(Duration.ofDays(1));
+
+    private final Duration length;
+
+    LeaderboardWindow(Duration length) {
+        this.length = length;
+    }
+
+    public boolean isRolling() {
+        return length != null;
+    }
+
+    public Duration getLength() {
+        return length;
+    }
+}
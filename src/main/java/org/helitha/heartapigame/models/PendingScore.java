@@ -0,0 +1,11 @@
+package org.helitha.heartapigame.models;
+
+import java.util.concurrent.CompletableFuture;
+
+public record PendingScore(String playerId, String username, int score, String difficulty,
+                           CompletableFuture<ScoreRecord> upload) {
+
+    public String playerKey() {
+        return playerId != null && !playerId.isEmpty() ? playerId : username;
+    }
+}
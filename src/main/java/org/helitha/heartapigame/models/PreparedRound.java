@@ -0,0 +1,6 @@
+package org.helitha.heartapigame.models;
+
+import javafx.scene.image.Image;
+
+public record PreparedRound(GameData gameData, Image image, byte[] contentHash) {
+}
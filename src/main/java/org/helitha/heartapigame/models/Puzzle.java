@@ -0,0 +1,8 @@
+package org.helitha.heartapigame.models;
+
+public record Puzzle(GameData gameData, byte[] imageBytes, boolean offline) {
+
+    public Puzzle(GameData gameData, byte[] imageBytes) {
+        this(gameData, imageBytes, false);
+    }
+}
@@ -0,0 +1,16 @@
+package org.helitha.heartapigame.models;
+
+public record ScoreRecord(long sequence, String playerId, String username, int score, long timestamp,
+                          String difficulty) {
+
+    // Scores journaled before difficulty was recorded are filed under Easy
+    public static final String DEFAULT_DIFFICULTY = "Easy";
+
+    public String playerKey() {
+        return playerId != null && !playerId.isEmpty() ? playerId : username;
+    }
+
+    public String partition() {
+        return difficulty != null && !difficulty.isEmpty() ? difficulty : DEFAULT_DIFFICULTY;
+    }
+}
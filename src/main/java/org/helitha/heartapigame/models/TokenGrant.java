@@ -0,0 +1,4 @@
+package org.helitha.heartapigame.models;
+
+public record TokenGrant(String idToken, String refreshToken, long expiresInSeconds) {
+}
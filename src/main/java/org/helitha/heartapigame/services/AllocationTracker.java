@@ -0,0 +1,52 @@
+package org.helitha.heartapigame.services;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+public class AllocationTracker {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadMXBean();
+
+    private final String name;
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    public AllocationTracker(String name) {
+        this.name = name;
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+
+    public long begin() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    public void end(long startBytes) {
+        if (THREADS == null) {
+            return;
+        }
+        allocatedBytes.add(THREADS.getCurrentThreadAllocatedBytes() - startBytes);
+        samples.increment();
+    }
+
+    public long getSamples() {
+        return samples.sum();
+    }
+
+    public long getAverageBytesPerRequest() {
+        long count = samples.sum();
+        return count == 0 ? 0 : allocatedBytes.sum() / count;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + getSamples() + " requests, avg " + getAverageBytesPerRequest() + " bytes allocated/request";
+    }
+}
@@ -1,77 +1,352 @@
 package org.helitha.heartapigame.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.helitha.heartapigame.models.GameData;
+import org.helitha.heartapigame.models.Puzzle;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
-public class ApiService {
+public class ApiService implements PuzzleSource {
 
     private static final String API_URL = "https://marcconrad.com/uob/heart/api.php";
     private static final int MAX_RETRIES = 3;
-    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
     private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(15);
+    private static final int CIRCUIT_FAILURE_THRESHOLD = 3;
+    private static final Duration CIRCUIT_OPEN_DURATION = Duration.ofSeconds(15);
+    private static final double HEDGE_PERCENTILE = 0.95;
+    private static final int MIN_HEDGE_SAMPLES = 20;
+    private static final long DEFAULT_HEDGE_DELAY_MS = 1000;
+    private static final long MIN_HEDGE_DELAY_MS = 100;
+    private static final Duration DEFAULT_FETCH_BUDGET = Duration.ofSeconds(20);
+    private static final long MIN_ATTEMPT_BUDGET_MS = 250;
+    private static final long BASE_BACKOFF_MS = 500;
+    private static final boolean LOG_RAW_BODY = Boolean.getBoolean("heartapi.logRawBody");
+    static final Path PACK_PATH = Path.of("data", "puzzles.pack");
+    static final Path PACK_INDEX_PATH = Path.of("data", "puzzles.idx");
+    static final long MAX_PACK_BYTES = 64L * 1024 * 1024;
     
-    private final HttpClient httpClient;
-    private final ObjectMapper objectMapper;
+    private final URI apiUri;
+    private final HttpTransport transport;
+    private final ObjectReader gameDataReader;
+    private final AllocationTracker decodeAllocations = new AllocationTracker("GameData decode");
+    private final PuzzlePackStore puzzlePack;
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("puzzle-api", CIRCUIT_FAILURE_THRESHOLD, CIRCUIT_OPEN_DURATION);
+    private final LatencyTracker latencies = new LatencyTracker(200);
+    private final LongAdder hedgedRequests = new LongAdder();
 
     public ApiService() {
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(CONNECT_TIMEOUT)
+        this(URI.create(API_URL), new PuzzlePackStore(PACK_PATH, PACK_INDEX_PATH, MAX_PACK_BYTES));
+    }
+
+    public ApiService(URI apiUri, PuzzlePackStore puzzlePack) {
+        this.apiUri = apiUri;
+        this.transport = HttpTransport.getInstance();
+        this.gameDataReader = new ObjectMapper().readerFor(GameData.class);
+        this.puzzlePack = puzzlePack;
+    }
+
+    public CompletableFuture<Puzzle> fetchPuzzleAsync() {
+        return fetchPuzzleAsync(Instant.now().plus(DEFAULT_FETCH_BUDGET));
+    }
+
+    @Override
+    public CompletableFuture<Puzzle> fetchPuzzleAsync(Instant deadline) {
+        CompletableFuture<GameData> fetch = fetchGameDataAsync(deadline);
+        CompletableFuture<Puzzle> live = fetch.thenCompose(gameData -> fetchImageBytesAsync(gameData.question(), deadline)
+                .thenApply(imageBytes -> new Puzzle(gameData, imageBytes)));
+        if (puzzlePack != null) {
+            live.thenAcceptAsync(puzzlePack::append);
+        }
+
+        CompletableFuture<Puzzle> result = live.handle((puzzle, error) -> {
+            if (error == null) {
+                return puzzle;
+            }
+            Optional<Puzzle> offline = offlinePuzzle();
+            if (offline.isPresent()) {
+                System.out.println("Puzzle API unavailable, serving puzzle from offline pack ("
+                        + puzzlePack.size() + " puzzles)");
+                return offline.get();
+            }
+            throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+        });
+        result.whenComplete((puzzle, error) -> {
+            if (error instanceof CancellationException) {
+                fetch.cancel(true);
+                live.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public Optional<Puzzle> offlinePuzzle() {
+        return puzzlePack != null ? puzzlePack.randomPuzzle() : Optional.empty();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return circuitBreaker.getState() != CircuitBreaker.State.OPEN;
+    }
+
+    public CompletableFuture<byte[]> fetchImageBytesAsync(String imageUrl, Instant deadline) {
+        long remainingMs = Duration.between(Instant.now(), deadline).toMillis();
+        if (remainingMs < MIN_ATTEMPT_BUDGET_MS) {
+            return CompletableFuture.failedFuture(new IOException("Fetch budget exhausted before image download"));
+        }
+
+        HttpRequest request = transport.newRequest(URI.create(imageUrl))
+                .timeout(Duration.ofMillis(Math.min(REQUEST_TIMEOUT.toMillis(), remainingMs)))
+                .GET()
                 .build();
-        this.objectMapper = new ObjectMapper();
+
+        return transport.sendForBytes(request);
     }
 
     public GameData fetchGameData() throws IOException, InterruptedException {
-        IOException lastException = null;
-        
-        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-            try {
-                return attemptFetch();
-            } catch (IOException e) {
-                lastException = e;
-                System.err.println("API fetch attempt " + attempt + " failed: " + e.getMessage());
-                
-                if (attempt < MAX_RETRIES) {
-                    long backoffMs = (long) Math.pow(2, attempt) * 500;
-                    System.out.println("Retrying in " + backoffMs + "ms...");
-                    Thread.sleep(backoffMs);
+        CompletableFuture<GameData> future = fetchGameDataAsync();
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("API fetch failed", cause);
+        }
+    }
+
+    public CompletableFuture<GameData> fetchGameDataAsync() {
+        return fetchGameDataAsync(Instant.now().plus(DEFAULT_FETCH_BUDGET));
+    }
+
+    public CompletableFuture<GameData> fetchGameDataAsync(Instant deadline) {
+        CompletableFuture<GameData> result = new CompletableFuture<>();
+        scheduleAttempt(1, deadline, result);
+        return result;
+    }
+
+    private void scheduleAttempt(int attempt, Instant deadline, CompletableFuture<GameData> result) {
+        if (result.isDone()) {
+            return;
+        }
+
+        long budgetMs = Duration.between(Instant.now(), deadline).toMillis();
+        if (budgetMs < MIN_ATTEMPT_BUDGET_MS) {
+            result.completeExceptionally(new IOException(
+                    "Fetch budget exhausted after " + (attempt - 1) + " attempts"));
+            return;
+        }
+
+        if (!circuitBreaker.tryAcquire()) {
+            result.completeExceptionally(new IOException("Puzzle API circuit breaker is " + circuitBreaker.getState()));
+            return;
+        }
+
+        long startNs = System.nanoTime();
+        Duration attemptTimeout = Duration.ofMillis(Math.min(REQUEST_TIMEOUT.toMillis(), budgetMs));
+        CompletableFuture<GameData> inFlight = hedgedAttemptAsync(attemptTimeout);
+        result.whenComplete((data, error) -> {
+            if (error instanceof CancellationException) {
+                inFlight.cancel(true);
+            }
+        });
+
+        inFlight.whenComplete((data, error) -> {
+            long elapsedMs = (System.nanoTime() - startNs) / 1_000_000;
+
+            if (error == null) {
+                if (attempt > 1) {
+                    System.out.println("API fetch attempt " + attempt + " succeeded after " + elapsedMs + "ms of a "
+                            + budgetMs + "ms budget");
                 }
+                circuitBreaker.recordSuccess();
+                result.complete(data);
+                return;
+            }
+
+            Throwable cause = unwrap(error);
+            if (cause instanceof CancellationException) {
+                circuitBreaker.releaseProbe();
+                result.completeExceptionally(cause);
+                return;
             }
+
+            circuitBreaker.recordFailure();
+            System.err.println("API fetch attempt " + attempt + " failed after " + elapsedMs + "ms of a " + budgetMs
+                    + "ms budget: " + cause.getMessage());
+
+            if (attempt >= MAX_RETRIES || result.isDone()
+                    || circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+                result.completeExceptionally(new IOException("Failed after " + attempt + " attempts", cause));
+                return;
+            }
+
+            long backoffMs = jitteredBackoffMs(attempt);
+            long remainingMs = Duration.between(Instant.now(), deadline).toMillis();
+            if (backoffMs + MIN_ATTEMPT_BUDGET_MS > remainingMs) {
+                result.completeExceptionally(new IOException("Giving up after " + attempt
+                        + " attempts, only " + remainingMs + "ms of budget left", cause));
+                return;
+            }
+
+            System.out.println("Retrying in " + backoffMs + "ms (" + remainingMs + "ms of budget left)...");
+            CompletableFuture.runAsync(
+                    () -> scheduleAttempt(attempt + 1, deadline, result),
+                    CompletableFuture.delayedExecutor(backoffMs, TimeUnit.MILLISECONDS)
+            );
+        });
+    }
+
+    private long jitteredBackoffMs(int attempt) {
+        long ceiling = BASE_BACKOFF_MS << attempt;
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    private CompletableFuture<GameData> hedgedAttemptAsync(Duration timeout) {
+        CompletableFuture<GameData> result = new CompletableFuture<>();
+        List<CompletableFuture<GameData>> requests = new CopyOnWriteArrayList<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        launchRequest(result, requests, outstanding, timeout);
+
+        long hedgeDelayMs = hedgeDelayMs();
+        CompletableFuture.delayedExecutor(hedgeDelayMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            outstanding.incrementAndGet();
+            hedgedRequests.increment();
+            System.out.println("Puzzle request slower than " + hedgeDelayMs + "ms, sending hedged request");
+            launchRequest(result, requests, outstanding, timeout);
+        });
+
+        result.whenComplete((data, error) -> requests.forEach(request -> request.cancel(true)));
+        return result;
+    }
+
+    private void launchRequest(CompletableFuture<GameData> result, List<CompletableFuture<GameData>> requests,
+                               AtomicInteger outstanding, Duration timeout) {
+        long startNs = System.nanoTime();
+        CompletableFuture<GameData> request = attemptFetchAsync(timeout);
+        requests.add(request);
+        request.whenComplete((data, error) -> {
+            if (error == null) {
+                latencies.record((System.nanoTime() - startNs) / 1_000_000);
+                result.complete(data);
+            } else if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    private long hedgeDelayMs() {
+        if (latencies.getCount() < MIN_HEDGE_SAMPLES) {
+            return DEFAULT_HEDGE_DELAY_MS;
         }
-        
-        throw new IOException("Failed after " + MAX_RETRIES + " attempts", lastException);
+        return Math.max(MIN_HEDGE_DELAY_MS, latencies.percentile(HEDGE_PERCENTILE));
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    public LatencyTracker getLatencies() {
+        return latencies;
+    }
+
+    public long getHedgedRequestCount() {
+        return hedgedRequests.sum();
     }
 
-    private GameData attemptFetch() throws IOException, InterruptedException {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(API_URL))
-                .timeout(REQUEST_TIMEOUT)
+    private CompletableFuture<GameData> attemptFetchAsync(Duration timeout) {
+        HttpRequest request = transport.newRequest(apiUri)
+                .timeout(timeout)
                 .GET()
                 .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        return transport.sendAsync(request).thenApply(this::parseResponse);
+    }
+
+    private GameData parseResponse(HttpResponse<byte[]> response) {
+        try {
+            if (response.statusCode() != 200) {
+                throw new IOException("API request failed with status code: " + response.statusCode());
+            }
 
-        if (response.statusCode() == 200) {
-            String jsonResponse = response.body();
-            System.out.println("API Response: " + jsonResponse);
-            return objectMapper.readValue(jsonResponse, GameData.class);
-        } else {
-            throw new IOException("API request failed with status code: " + response.statusCode());
+            byte[] body = response.body();
+            if (LOG_RAW_BODY) {
+                System.out.println("API Response: " + new String(body, StandardCharsets.UTF_8));
+            }
+            long allocationStart = decodeAllocations.begin();
+            GameData gameData = gameDataReader.readValue(body);
+            decodeAllocations.end(allocationStart);
+            return gameData;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
+    public List<URI> getWarmUpTargets() {
+        return List.of(apiUri);
+    }
+
+    public AllocationTracker getDecodeAllocations() {
+        return decodeAllocations;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof UncheckedIOException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
     private static ApiService instance;
 
     public static ApiService getInstance() {
         if (instance == null) {
-            instance = new ApiService();
+            instance = createConfigured();
         }
         return instance;
     }
+
+    private static ApiService createConfigured() {
+        if ("stub".equalsIgnoreCase(System.getProperty("heartapi.source"))) {
+            try {
+                StubPuzzleServer stub = StubPuzzleServer.fromSystemProperties();
+                stub.start();
+                return new ApiService(stub.getApiUri(), null);
+            } catch (IOException e) {
+                System.err.println("Failed to start stub puzzle server, using live API: " + e.getMessage());
+            }
+        }
+
+        String apiUrl = System.getProperty("heartapi.url", API_URL);
+        return new ApiService(URI.create(apiUrl), new PuzzlePackStore(PACK_PATH, PACK_INDEX_PATH, MAX_PACK_BYTES));
+    }
 }
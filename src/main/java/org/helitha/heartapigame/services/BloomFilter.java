@@ -0,0 +1,139 @@
+package org.helitha.heartapigame.services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+public class BloomFilter {
+
+    private static final int FILE_MAGIC = 0x48424C4D;
+
+    private final int numBits;
+    private final int numHashes;
+    private final int capacity;
+    private long[] current;
+    private long[] previous;
+    private int currentCount;
+
+    public BloomFilter(int capacity, double falsePositiveRate) {
+        this.capacity = capacity;
+        this.numBits = optimalBits(capacity, falsePositiveRate);
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * Math.log(2)));
+        this.current = new long[(numBits + 63) / 64];
+        this.previous = new long[current.length];
+    }
+
+    private static int optimalBits(int capacity, double falsePositiveRate) {
+        double bits = -capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        return (int) Math.ceil(bits / 64) * 64;
+    }
+
+    public synchronized boolean mightContain(byte[] digest) {
+        return contains(current, digest) || contains(previous, digest);
+    }
+
+    public synchronized void add(byte[] digest) {
+        if (contains(current, digest)) {
+            return;
+        }
+        if (currentCount >= capacity) {
+            long[] recycled = previous;
+            Arrays.fill(recycled, 0L);
+            previous = current;
+            current = recycled;
+            currentCount = 0;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(digest);
+        long h1 = buffer.getLong();
+        long h2 = buffer.getLong();
+        for (int i = 0; i < numHashes; i++) {
+            int bit = index(h1, h2, i);
+            current[bit >>> 6] |= 1L << bit;
+        }
+        currentCount++;
+    }
+
+    private boolean contains(long[] bits, byte[] digest) {
+        ByteBuffer buffer = ByteBuffer.wrap(digest);
+        long h1 = buffer.getLong();
+        long h2 = buffer.getLong();
+        for (int i = 0; i < numHashes; i++) {
+            int bit = index(h1, h2, i);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int index(long h1, long h2, int i) {
+        return (int) Math.floorMod(h1 + i * h2, (long) numBits);
+    }
+
+    public synchronized int getCurrentCount() {
+        return currentCount;
+    }
+
+    public int getSizeInBytes() {
+        return current.length * Long.BYTES * 2;
+    }
+
+    public synchronized void save(Path path) {
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (OutputStream file = Files.newOutputStream(tmp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(numBits);
+                out.writeInt(numHashes);
+                out.writeInt(currentCount);
+                for (long word : current) {
+                    out.writeLong(word);
+                }
+                for (long word : previous) {
+                    out.writeLong(word);
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error saving bloom filter: " + e.getMessage());
+        }
+    }
+
+    public static BloomFilter load(Path path, int capacity, double falsePositiveRate) {
+        BloomFilter filter = new BloomFilter(capacity, falsePositiveRate);
+        if (!Files.exists(path)) {
+            return filter;
+        }
+
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != filter.numBits || in.readInt() != filter.numHashes) {
+                System.err.println("Bloom filter file " + path + " has a different layout, starting fresh");
+                return filter;
+            }
+            filter.currentCount = in.readInt();
+            for (int i = 0; i < filter.current.length; i++) {
+                filter.current[i] = in.readLong();
+            }
+            for (int i = 0; i < filter.previous.length; i++) {
+                filter.previous[i] = in.readLong();
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading bloom filter, starting fresh: " + e.getMessage());
+            return new BloomFilter(capacity, falsePositiveRate);
+        }
+        return filter;
+    }
+}
@@ -0,0 +1,128 @@
+package org.helitha.heartapigame.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.helitha.heartapigame.models.LeaderboardEntry;
+import org.helitha.heartapigame.models.LeaderboardPage;
+import org.helitha.heartapigame.models.ScoreRecord;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.OptionalInt;
+
+public class FileLeaderboardRepository implements LeaderboardRepository {
+
+    private static final long COMPACT_MIN_LINES = 1024;
+
+    private final Path path;
+    private final InMemoryLeaderboardRepository memory = new InMemoryLeaderboardRepository();
+    private final ObjectReader recordReader;
+    private final ObjectWriter recordWriter;
+    private BufferedWriter out;
+    private long logLines;
+
+    public FileLeaderboardRepository(Path path) throws IOException {
+        this.path = path;
+        ObjectMapper objectMapper = new ObjectMapper();
+        this.recordReader = objectMapper.readerFor(ScoreRecord.class);
+        this.recordWriter = objectMapper.writerFor(ScoreRecord.class);
+        load();
+    }
+
+    private void load() throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        if (Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        memory.recordBest(recordReader.readValue(line));
+                        logLines++;
+                    } catch (IOException e) {
+                        System.err.println("Skipping unreadable leaderboard line: " + e.getMessage());
+                    }
+                }
+            }
+            System.out.println("Leaderboard file loaded: " + memory.size() + " players from " + logLines + " lines");
+        }
+        out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public synchronized int recordBest(ScoreRecord record) throws IOException {
+        ScoreRecord previous = memory.bestOf(record.partition(), record.playerKey());
+        int best = memory.recordBest(record);
+        // Ties and lower scores leave the best untouched, so there is nothing to log
+        if (previous == null || best > previous.score()) {
+            out.write(recordWriter.writeValueAsString(record));
+            out.newLine();
+            out.flush();
+            logLines++;
+            if (logLines > COMPACT_MIN_LINES && logLines > 2L * memory.size()) {
+                compact();
+            }
+        }
+        return best;
+    }
+
+    private void compact() throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        List<ScoreRecord> records = memory.snapshot();
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (ScoreRecord record : records) {
+                writer.write(recordWriter.writeValueAsString(record));
+                writer.newLine();
+            }
+        }
+        out.close();
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        out = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        logLines = records.size();
+    }
+
+    @Override
+    public List<LeaderboardEntry> topScores(String difficulty, int limit) {
+        return memory.topScores(difficulty, limit);
+    }
+
+    @Override
+    public LeaderboardPage page(String difficulty, LeaderboardPage.Cursor after, int pageSize) {
+        return memory.page(difficulty, after, pageSize);
+    }
+
+    @Override
+    public List<LeaderboardEntry> allScores(String difficulty) {
+        return memory.allScores(difficulty);
+    }
+
+    @Override
+    public OptionalInt rankOf(String difficulty, int score) {
+        return memory.rankOf(difficulty, score);
+    }
+
+    @Override
+    public void addChangeListener(ChangeListener listener) {
+        memory.addChangeListener(listener);
+    }
+
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
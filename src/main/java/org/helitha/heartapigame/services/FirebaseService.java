@@ -1,9 +1,15 @@
 package org.helitha.heartapigame.services;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
 import com.google.cloud.firestore.Query;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.firebase.FirebaseApp;
@@ -11,49 +17,116 @@ import com.google.firebase.FirebaseOptions;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
 import com.google.firebase.auth.UserRecord;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.firebase.cloud.FirestoreClient;
 import org.helitha.heartapigame.models.AuthResult;
 import org.helitha.heartapigame.models.LeaderboardEntry;
+import org.helitha.heartapigame.models.LeaderboardPage;
+import org.helitha.heartapigame.models.LeaderboardWindow;
+import org.helitha.heartapigame.models.ScoreRecord;
+import org.helitha.heartapigame.models.TokenGrant;
 
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.net.http.HttpClient;
+import java.net.URLEncoder;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 public class FirebaseService {
 
     private static FirebaseService instance;
-    private FirebaseAuth firebaseAuth;
-    private Firestore firestore;
-    private String firebaseApiKey;
-    private final HttpClient httpClient;
+    private volatile FirebaseAuth firebaseAuth;
+    private volatile Firestore firestore;
+    private volatile String firebaseApiKey;
+    private static final CompletableFuture<Void> ready = new CompletableFuture<>();
+    private static boolean initStarted;
+    private final HttpTransport transport;
     private final ObjectMapper objectMapper;
-
+    private final JsonFactory jsonFactory;
+    private final AllocationTracker authAllocations = new AllocationTracker("Auth response decode");
+    private volatile LeaderboardRepository leaderboard;
+    private volatile ListenerRegistration windowFeed;
+    private final TopScoresCache topScoresCache = new TopScoresCache(TOP_SCORES_CACHE_SIZE);
+    private final WindowedLeaderboards windowedLeaderboards = new WindowedLeaderboards();
+    private final LeaderboardSnapshotCache snapshotCache =
+            new LeaderboardSnapshotCache(Path.of("data", "leaderboard-snapshot.bin"), LEADERBOARD_CACHE_TTL);
+    private final ScoreJournal scoreJournal;
+    private final ScoreFlusher scoreFlusher;
+    private final Map<String, CompletableFuture<AuthResult>> pendingLogins = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<UserRecord>> pendingRegistrations = new ConcurrentHashMap<>();
+
+    static final String LEADERBOARD_COLLECTION = "leaderboard";
+    static final String LEADERBOARDS_COLLECTION = "leaderboards";
+    static final String PLAYER_BEST_COLLECTION = "player_best";
+    private static final int TOP_SCORES_CACHE_SIZE = 50;
+    private static final Duration LEADERBOARD_CACHE_TTL = Duration.ofSeconds(60);
+
+    private static final Duration AUTH_TIMEOUT = Duration.ofSeconds(10);
+    private static final long INIT_WAIT_SECONDS = 30;
     private static final String SIGN_IN_URL = "https://identitytoolkit.googleapis.com/v1/accounts:signInWithPassword?key=";
+    private static final String TOKEN_REFRESH_URL = "https://securetoken.googleapis.com/v1/token?key=";
 
     private FirebaseService() {
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(10))
-                .build();
+        this.transport = HttpTransport.getInstance();
         this.objectMapper = new ObjectMapper();
+        this.jsonFactory = objectMapper.getFactory();
+        this.scoreJournal = new ScoreJournal(Path.of("data", "scores.journal"), Path.of("data", "scores.ack"));
+        this.scoreFlusher = new ScoreFlusher(scoreJournal);
     }
 
-    public static FirebaseService getInstance() {
+    public static synchronized FirebaseService getInstance() {
         if (instance == null) {
             instance = new FirebaseService();
         }
         return instance;
     }
 
+    public static synchronized CompletableFuture<Void> initializeAsync() {
+        if (!initStarted) {
+            initStarted = true;
+            Thread initThread = new Thread(() -> getInstance().initialize(), "firebase-init");
+            initThread.setDaemon(true);
+            initThread.start();
+        }
+        return ready;
+    }
+
+    private boolean awaitReady() {
+        try {
+            ready.get(INIT_WAIT_SECONDS, TimeUnit.SECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            System.err.println("Timed out waiting for Firebase initialization");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Firebase initialization failed: " + e.getMessage());
+        }
+        return false;
+    }
+
     public void initialize() {
+        long startNs = System.nanoTime();
         try {
             String credentialsPath = "config/firebase-credentials.json";
             InputStream serviceAccount = new FileInputStream(credentialsPath);
@@ -71,14 +144,78 @@ public class FirebaseService {
 
             loadApiKey(credentialsPath);
             
-            System.out.println("Firebase initialized successfully");
+            System.out.println("Firebase initialized successfully in "
+                    + (System.nanoTime() - startNs) / 1_000_000 + " ms");
 
         } catch (IOException e) {
             System.err.println("Error initializing Firebase: " + e.getMessage());
             System.err.println("Make sure the firebase-credentials.json file exists in the config/ directory");
+        } finally {
+            startLeaderboard();
+            ready.complete(null);
+        }
+    }
+
+    private void startLeaderboard() {
+        if (firestore != null) {
+            startWindowFeed();
+        }
+        leaderboard = LeaderboardRepository.createConfigured(firestore);
+        if (leaderboard == null) {
+            System.err.println("Leaderboard unavailable, scores stay in the local journal");
+            return;
+        }
+        System.out.println("Leaderboard engine: " + leaderboard.name());
+        leaderboard.addChangeListener(topScoresCache);
+        scoreFlusher.start(firestore, leaderboard);
+        if (leaderboard instanceof FirestoreLeaderboardRepository repository) {
+            startBackfill(repository);
+        }
+    }
+
+    private void startBackfill(FirestoreLeaderboardRepository repository) {
+        Thread backfillThread = new Thread(() -> {
+            try {
+                repository.backfillFromHistory();
+            } catch (IOException e) {
+                System.err.println("Error backfilling personal bests: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "leaderboard-backfill");
+        backfillThread.setDaemon(true);
+        backfillThread.start();
+    }
+
+    private void startWindowFeed() {
+        long cutoff = System.currentTimeMillis() - LeaderboardWindow.WEEKLY.getLength().toMillis();
+        windowFeed = new WindowBestStore(firestore).listen(cutoff, windowedLeaderboards::accept);
+    }
+
+    public void close() {
+        ListenerRegistration feed = windowFeed;
+        if (feed != null) {
+            feed.remove();
+            windowFeed = null;
+        }
+        if (leaderboard instanceof FirestoreLeaderboardRepository repository) {
+            repository.close();
         }
     }
 
+    public List<LeaderboardEntry> getWindowTopScores(String difficulty, LeaderboardWindow window, int limit) {
+        return windowedLeaderboards.topScores(difficulty, window, limit);
+    }
+
+    public LeaderboardRepository getLeaderboard() {
+        return leaderboard;
+    }
+
+    public OptionalInt getLeaderboardRank(String difficulty, int score) {
+        LeaderboardRepository repository = leaderboard;
+        return repository != null ? repository.rankOf(difficulty, score) : OptionalInt.empty();
+    }
+
     private void loadApiKey(String credentialsPath) {
         firebaseApiKey = System.getenv("FIREBASE_API_KEY");
 
@@ -93,75 +230,236 @@ public class FirebaseService {
     }
 
     public UserRecord registerUser(String email, String password, String displayName) {
+        try {
+            return registerUserAsync(email, password, displayName).join();
+        } catch (CompletionException | CancellationException e) {
+            return null;
+        }
+    }
+
+    public CompletableFuture<UserRecord> registerUserAsync(String email, String password, String displayName) {
+        return ready.thenCompose(ignored -> createUserAsync(email, password, displayName));
+    }
+
+    private CompletableFuture<UserRecord> createUserAsync(String email, String password, String displayName) {
         if (firebaseAuth == null) {
             System.err.println("Firebase not initialized");
-            return null;
+            return CompletableFuture.failedFuture(new IllegalStateException("Firebase not initialized"));
         }
 
-        try {
+        return deduplicate(pendingRegistrations, email, password, () -> {
             UserRecord.CreateRequest request = new UserRecord.CreateRequest()
                     .setEmail(email)
                     .setPassword(password)
                     .setDisplayName(displayName)
                     .setEmailVerified(false);
 
-            UserRecord userRecord = firebaseAuth.createUser(request);
-            System.out.println("Successfully created user: " + userRecord.getUid());
-            return userRecord;
+            CompletableFuture<UserRecord> result = new CompletableFuture<>();
+            ApiFutures.addCallback(firebaseAuth.createUserAsync(request), new ApiFutureCallback<>() {
+                @Override
+                public void onSuccess(UserRecord userRecord) {
+                    System.out.println("Successfully created user: " + userRecord.getUid());
+                    result.complete(userRecord);
+                }
 
-        } catch (FirebaseAuthException e) {
-            System.err.println("Error creating user: " + e.getMessage());
-            System.err.println("Error code: " + e.getAuthErrorCode());
+                @Override
+                public void onFailure(Throwable error) {
+                    if (error instanceof FirebaseAuthException e) {
+                        System.err.println("Error creating user: " + e.getMessage());
+                        System.err.println("Error code: " + e.getAuthErrorCode());
+                    } else {
+                        System.err.println("Error creating user: " + error.getMessage());
+                    }
+                    result.completeExceptionally(error);
+                }
+            }, MoreExecutors.directExecutor());
+            return result.orTimeout(AUTH_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        });
+    }
+
+    public AuthResult loginUser(String email, String password) {
+        try {
+            return loginUserAsync(email, password).join();
+        } catch (CompletionException | CancellationException e) {
             return null;
         }
     }
 
-    public AuthResult loginUser(String email, String password) {
+    public static List<URI> getWarmUpTargets() {
+        return List.of(URI.create(SIGN_IN_URL), URI.create(TOKEN_REFRESH_URL));
+    }
+
+    public CompletableFuture<AuthResult> loginUserAsync(String email, String password) {
+        return ready.thenCompose(ignored -> signInAsync(email, password));
+    }
+
+    private CompletableFuture<AuthResult> signInAsync(String email, String password) {
         if (firebaseApiKey == null || firebaseApiKey.isEmpty()) {
             System.err.println("Firebase API key not configured - cannot verify password");
-            return null;
+            return CompletableFuture.failedFuture(new IllegalStateException("Firebase API key not configured"));
         }
 
-        try {
-            String requestBody = objectMapper.writeValueAsString(Map.of(
-                    "email", email,
-                    "password", password,
-                    "returnSecureToken", true
-            ));
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(SIGN_IN_URL + firebaseApiKey))
+        return deduplicate(pendingLogins, email, password, () -> {
+            String requestBody;
+            try {
+                requestBody = objectMapper.writeValueAsString(Map.of(
+                        "email", email,
+                        "password", password,
+                        "returnSecureToken", true
+                ));
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+
+            HttpRequest request = transport.newRequest(URI.create(SIGN_IN_URL + firebaseApiKey))
                     .header("Content-Type", "application/json")
-                    .timeout(Duration.ofSeconds(10))
+                    .timeout(AUTH_TIMEOUT)
                     .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                     .build();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            return transport.sendAsync(request)
+                    .thenApply(this::readSignInResponse)
+                    .orTimeout(AUTH_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+                    .whenComplete((authResult, error) -> {
+                        if (error != null) {
+                            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                    ? error.getCause() : error;
+                            System.err.println("Error during login: " + cause);
+                        }
+                    });
+        });
+    }
+
+    private AuthResult readSignInResponse(HttpResponse<byte[]> response) {
+        byte[] body = response.body();
+        try {
+            if (response.statusCode() == 200) {
+                long allocationStart = authAllocations.begin();
+                AuthResult authResult = readAuthResult(body);
+                authAllocations.end(allocationStart);
+
+                System.out.println("Login successful for user: " + authResult.getLocalId() + " - " + authAllocations);
+                return authResult;
+            }
+            JsonNode errorJson = objectMapper.readTree(body);
+            String errorMessage = errorJson.path("error").path("message").asText("Unknown error");
+            throw new CompletionException(new IOException("Login failed: " + errorMessage));
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    public CompletableFuture<TokenGrant> refreshIdTokenAsync(String refreshToken) {
+        return ready.thenCompose(ignored -> requestTokenRefresh(refreshToken));
+    }
+
+    private CompletableFuture<TokenGrant> requestTokenRefresh(String refreshToken) {
+        if (firebaseApiKey == null || firebaseApiKey.isEmpty()) {
+            return CompletableFuture.failedFuture(new IOException("Firebase API key not configured"));
+        }
+
+        String form = "grant_type=refresh_token&refresh_token="
+                + URLEncoder.encode(refreshToken, StandardCharsets.UTF_8);
+        HttpRequest request = transport.newRequest(URI.create(TOKEN_REFRESH_URL + firebaseApiKey))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .timeout(AUTH_TIMEOUT)
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
 
+        return transport.sendAsync(request)
+                .thenApply(this::readTokenGrant)
+                .orTimeout(AUTH_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private TokenGrant readTokenGrant(HttpResponse<byte[]> response) {
+        try {
+            JsonNode json = objectMapper.readTree(response.body());
             if (response.statusCode() == 200) {
-                JsonNode json = objectMapper.readTree(response.body());
-                String localId = json.get("localId").asText();
-                String userEmail = json.get("email").asText();
-                String displayName = json.has("displayName") ? json.get("displayName").asText() : userEmail;
-                String idToken = json.get("idToken").asText();
-                String refreshToken = json.get("refreshToken").asText();
-                boolean registered = json.has("registered") && json.get("registered").asBoolean();
-
-                System.out.println("Login successful for user: " + localId);
-                return new AuthResult(localId, userEmail, displayName, idToken, refreshToken, registered);
+                String idToken = json.path("id_token").asText(null);
+                String refreshToken = json.path("refresh_token").asText(null);
+                if (idToken == null || refreshToken == null) {
+                    throw new IOException("Incomplete token refresh response");
+                }
+                return new TokenGrant(idToken, refreshToken, json.path("expires_in").asLong(3600));
+            }
+
+            String errorMessage = json.path("error").path("message").asText("Unknown error");
+            if (response.statusCode() == 400) {
+                throw new CompletionException(new IllegalStateException(errorMessage));
+            }
+            throw new IOException("Token refresh failed: " + response.statusCode() + " " + errorMessage);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    // Only identical retries share a request, a corrected password must not inherit the old attempt's error
+    static <T> CompletableFuture<T> deduplicate(Map<String, CompletableFuture<T>> pending, String email,
+                                                String password, Supplier<CompletableFuture<T>> request) {
+        String key = email.toLowerCase() + "#" + passwordHash(password);
+        CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = pending.putIfAbsent(key, created);
+        if (existing != null) {
+            System.out.println("Auth request already in flight for " + email + ", sharing it");
+            return existing;
+        }
+
+        request.get().whenComplete((result, error) -> {
+            pending.remove(key, created);
+            if (error != null) {
+                created.completeExceptionally(error);
             } else {
-                JsonNode errorJson = objectMapper.readTree(response.body());
-                String errorMessage = errorJson.path("error").path("message").asText("Unknown error");
-                System.err.println("Login failed: " + errorMessage);
-                return null;
+                created.complete(result);
             }
-        } catch (IOException | InterruptedException e) {
-            System.err.println("Error during login: " + e.getMessage());
-            return null;
+        });
+        return created;
+    }
+
+    private static String passwordHash(String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private AuthResult readAuthResult(byte[] body) throws IOException {
+        String localId = null;
+        String email = null;
+        String displayName = null;
+        String idToken = null;
+        String refreshToken = null;
+        boolean registered = false;
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected sign-in response");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "localId" -> localId = parser.getValueAsString();
+                    case "email" -> email = parser.getValueAsString();
+                    case "displayName" -> displayName = parser.getValueAsString();
+                    case "idToken" -> idToken = parser.getValueAsString();
+                    case "refreshToken" -> refreshToken = parser.getValueAsString();
+                    case "registered" -> registered = parser.getValueAsBoolean();
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        if (localId == null || email == null || idToken == null || refreshToken == null) {
+            throw new IOException("Incomplete sign-in response");
         }
+        return new AuthResult(localId, email, displayName != null ? displayName : email,
+                idToken, refreshToken, registered);
     }
 
     public UserRecord getUserById(String uid) {
+        awaitReady();
         if (firebaseAuth == null) {
             System.err.println("Firebase not initialized");
             return null;
@@ -175,93 +473,164 @@ public class FirebaseService {
         }
     }
 
-    public void saveScore(String username, int score) {
-        if (firestore == null) {
-            System.err.println("Firestore not initialized");
-            return;
+    public CompletableFuture<ScoreRecord> saveScore(String playerId, String username, int score, String difficulty) {
+        return scoreJournal.append(playerId, username, score, difficulty, System.currentTimeMillis())
+                .whenComplete((record, error) -> {
+                    if (error != null) {
+                        System.err.println("Error journaling score: " + error.getMessage());
+                        return;
+                    }
+                    System.out.println("Score journaled: " + username + " - " + score + " (#" + record.sequence() + ")");
+                    windowedLeaderboards.accept(scoreJournal.documentId(record), record);
+                    scoreFlusher.requestFlush();
+                })
+                .thenCompose(record -> scoreJournal.whenAcknowledged(record.sequence()).thenApply(ignored -> record));
+    }
+
+    public Integer getCachedPersonalBest(String playerKey, String difficulty) {
+        return scoreFlusher.getCachedPersonalBest(playerKey, difficulty);
+    }
+
+    public List<LeaderboardEntry> getTopScores(String difficulty) {
+        Optional<List<LeaderboardEntry>> cached = topScoresCache.get(difficulty, 10);
+        if (cached.isPresent()) {
+            return cached.get();
         }
 
-        try {
-            Map<String, Object> scoreData = new HashMap<>();
-            scoreData.put("username", username);
-            scoreData.put("score", score);
-            scoreData.put("timestamp", System.currentTimeMillis());
-            firestore.collection("leaderboard")
-                    .add(scoreData)
-                    .get();
+        List<LeaderboardEntry> top = snapshotCache.get(topKey(difficulty), () -> fetchTopScores(difficulty));
+        return new ArrayList<>(top.subList(0, Math.min(10, top.size())));
+    }
 
-            System.out.println("Score saved successfully: " + username + " - " + score);
+    public Optional<LeaderboardPage> getCachedScoresPage(String difficulty, int pageSize) {
+        Optional<List<LeaderboardEntry>> top = topScoresCache.get(difficulty, pageSize);
+        if (top.isEmpty()) {
+            top = snapshotCache.peek(topKey(difficulty), () -> fetchTopScores(difficulty));
+        }
+        return top.map(entries -> firstPage(entries, pageSize));
+    }
 
-        } catch (InterruptedException | ExecutionException e) {
-            System.err.println("Error saving score: " + e.getMessage());
-            System.err.println("Error type: " + e.getClass().getSimpleName());
+    public boolean isScoresPageFresh(String difficulty) {
+        return topScoresCache.isWarm(difficulty) || snapshotCache.isFresh(topKey(difficulty));
+    }
+
+    public LeaderboardPage refreshScoresPage(String difficulty, int pageSize) {
+        try {
+            return firstPage(snapshotCache.revalidate(topKey(difficulty), () -> fetchTopScores(difficulty)).join(),
+                    pageSize);
+        } catch (CompletionException e) {
+            System.err.println("Error refreshing leaderboard: " + e.getCause().getMessage());
+            return getScoresPage(difficulty, null, pageSize);
         }
     }
 
-    public List<LeaderboardEntry> getTopScores() {
-        List<LeaderboardEntry> topScores = new ArrayList<>();
+    public LeaderboardPage getScoresPage(String difficulty, LeaderboardPage.Cursor after, int pageSize) {
+        if (after == null && pageSize <= topScoresCache.getCapacity()) {
+            Optional<List<LeaderboardEntry>> cached = topScoresCache.get(difficulty, pageSize);
+            return firstPage(cached.orElseGet(() ->
+                    snapshotCache.get(topKey(difficulty), () -> fetchTopScores(difficulty))), pageSize);
+        }
 
-        if (firestore == null) {
-            System.err.println("Firestore not initialized");
-            return topScores;
+        LeaderboardRepository repository = awaitLeaderboard();
+        if (repository == null) {
+            return new LeaderboardPage(new ArrayList<>(), null);
         }
 
         try {
-            List<QueryDocumentSnapshot> documents = firestore.collection("leaderboard")
-                    .orderBy("score", Query.Direction.DESCENDING)
-                    .limit(10)
-                    .get()
-                    .get()
-                    .getDocuments();
+            LeaderboardPage page = repository.page(difficulty, after, pageSize);
+            System.out.println("Retrieved " + difficulty + " leaderboard page of " + page.entries().size() + " scores");
+            return page;
+        } catch (IOException e) {
+            System.err.println("Error retrieving leaderboard page: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new LeaderboardPage(new ArrayList<>(), null);
+    }
 
-            for (QueryDocumentSnapshot document : documents) {
-                String username = document.getString("username");
-                Long scoreLong = document.getLong("score");
-                int score = scoreLong != null ? scoreLong.intValue() : 0;
+    private List<LeaderboardEntry> fetchTopScores(String difficulty) throws IOException, InterruptedException {
+        LeaderboardRepository repository = requireLeaderboard();
+        topScoresCache.beginLoad(difficulty);
+        List<LeaderboardEntry> top;
+        try {
+            top = repository.topScores(difficulty, topScoresCache.getCapacity());
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            topScoresCache.cancelLoad(difficulty);
+            throw e;
+        }
+        topScoresCache.fill(difficulty, top);
+        System.out.println("Cached top " + top.size() + " " + difficulty + " scores - " + topScoresCache.getStats()
+                + " | snapshot " + snapshotCache.getStats());
+        return top;
+    }
 
-                topScores.add(new LeaderboardEntry(username, score));
-            }
+    private static String topKey(String difficulty) {
+        return "top/" + difficulty;
+    }
 
-            System.out.println("Retrieved " + topScores.size() + " top scores");
+    private static LeaderboardPage firstPage(List<LeaderboardEntry> top, int pageSize) {
+        List<LeaderboardEntry> entries = new ArrayList<>(top.subList(0, Math.min(pageSize, top.size())));
+        LeaderboardPage.Cursor next = null;
+        if (entries.size() == pageSize) {
+            LeaderboardEntry last = entries.get(entries.size() - 1);
+            next = new LeaderboardPage.Cursor(last.getScore(), last.getPlayerId());
+        }
+        return new LeaderboardPage(entries, next);
+    }
 
-        } catch (InterruptedException | ExecutionException e) {
-            System.err.println("Error retrieving top scores: " + e.getMessage());
-            System.err.println("Error type: " + e.getClass().getSimpleName());
+    public List<LeaderboardEntry> getAllScores(String difficulty) {
+        return snapshotCache.get("all/" + difficulty, () -> {
+            List<LeaderboardEntry> scores = requireLeaderboard().allScores(difficulty);
+            System.out.println("Retrieved " + scores.size() + " " + difficulty + " scores (unsorted)");
+            return scores;
+        });
+    }
+
+    private LeaderboardRepository requireLeaderboard() throws IOException {
+        LeaderboardRepository repository = awaitLeaderboard();
+        if (repository == null) {
+            throw new IOException("Leaderboard not initialized");
         }
+        return repository;
+    }
 
-        return topScores;
+    private LeaderboardRepository awaitLeaderboard() {
+        awaitReady();
+        LeaderboardRepository repository = leaderboard;
+        if (repository == null) {
+            System.err.println("Leaderboard not initialized");
+        }
+        return repository;
     }
 
-    public List<LeaderboardEntry> getAllScores() {
-        List<LeaderboardEntry> scores = new ArrayList<>();
+    public List<LeaderboardEntry> getScoreHistory(String playerId, int limit) {
+        List<LeaderboardEntry> history = new ArrayList<>();
 
+        awaitReady();
         if (firestore == null) {
             System.err.println("Firestore not initialized");
-            return scores;
+            return history;
         }
 
         try {
-            List<QueryDocumentSnapshot> documents = firestore.collection("leaderboard")
+            List<QueryDocumentSnapshot> documents = firestore.collection(LEADERBOARD_COLLECTION)
+                    .whereEqualTo("playerId", playerId)
+                    .orderBy("timestamp", Query.Direction.DESCENDING)
+                    .limit(limit)
                     .get()
                     .get()
                     .getDocuments();
 
             for (QueryDocumentSnapshot document : documents) {
-                String username = document.getString("username");
                 Long scoreLong = document.getLong("score");
-                int score = scoreLong != null ? scoreLong.intValue() : 0;
-                if (username != null && !username.isEmpty()) {
-                    scores.add(new LeaderboardEntry(username, score));
-                }
+                history.add(new LeaderboardEntry(document.getString("username"),
+                        scoreLong != null ? scoreLong.intValue() : 0));
             }
 
-            System.out.println("Retrieved " + scores.size() + " scores (unsorted)");
-
         } catch (InterruptedException | ExecutionException e) {
-            System.err.println("Error retrieving all scores: " + e.getMessage());
+            System.err.println("Error retrieving score history: " + e.getMessage());
             System.err.println("Error type: " + e.getClass().getSimpleName());
         }
 
-        return scores;
+        return history;
     }
 }
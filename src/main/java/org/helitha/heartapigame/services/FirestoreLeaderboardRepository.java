@@ -0,0 +1,291 @@
+package org.helitha.heartapigame.services;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.SetOptions;
+import org.helitha.heartapigame.models.LeaderboardEntry;
+import org.helitha.heartapigame.models.LeaderboardPage;
+import org.helitha.heartapigame.models.ScoreRecord;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class FirestoreLeaderboardRepository implements LeaderboardRepository {
+
+    private static final long QUERY_TIMEOUT_SECONDS = 30;
+    private static final int BACKFILL_PAGE_SIZE = 1000;
+    private static final String MIGRATIONS_DOCUMENT = "_migrations";
+    private static final String BACKFILL_FIELD = "playerBestBackfilledAt";
+    private static final int HISTORY_OVERFETCH = 4;
+
+    private final Firestore firestore;
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean backfilled;
+
+    public FirestoreLeaderboardRepository(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    @Override
+    public String name() {
+        return "firestore";
+    }
+
+    private Partition partition(String difficulty) {
+        return partitions.computeIfAbsent(difficulty, this::startPartition);
+    }
+
+    private Partition startPartition(String difficulty) {
+        CollectionReference bests = firestore.collection(FirebaseService.LEADERBOARDS_COLLECTION)
+                .document(difficulty)
+                .collection(FirebaseService.PLAYER_BEST_COLLECTION);
+        Partition partition = new Partition(bests);
+
+        partition.registration = bests.addSnapshotListener((snapshots, error) -> {
+            if (error != null) {
+                System.err.println("Leaderboard listener error (" + difficulty + "): " + error.getMessage());
+                return;
+            }
+            if (snapshots == null) {
+                return;
+            }
+
+            for (DocumentChange change : snapshots.getDocumentChanges()) {
+                QueryDocumentSnapshot document = change.getDocument();
+                String username = document.getString("username");
+                if (change.getType() == DocumentChange.Type.REMOVED || username == null || username.isEmpty()) {
+                    partition.index.remove(document.getId());
+                    for (ChangeListener listener : listeners) {
+                        listener.onBestRemoved(difficulty, document.getId());
+                    }
+                    continue;
+                }
+
+                Long score = document.getLong("score");
+                Long timestamp = document.getLong("timestamp");
+                ScoreRecord best = new ScoreRecord(0, document.getId(), username,
+                        score != null ? score.intValue() : 0, timestamp != null ? timestamp : 0L, difficulty);
+                partition.index.upsert(document.getId(), username, best.score(), best.timestamp());
+                for (ChangeListener listener : listeners) {
+                    listener.onBestChanged(best);
+                }
+            }
+
+            if (!partition.indexReady) {
+                partition.indexReady = true;
+                System.out.println("Leaderboard index ready for " + difficulty + " with "
+                        + partition.index.size() + " entries");
+            }
+        });
+        return partition;
+    }
+
+    @Override
+    public int recordBest(ScoreRecord record) throws IOException, InterruptedException {
+        DocumentReference bestRef = partition(record.partition()).bests.document(documentId(record.playerKey()));
+        return await(firestore.runTransaction(transaction -> {
+            DocumentSnapshot current = transaction.get(bestRef).get();
+            Long currentScore = current.exists() ? current.getLong("score") : null;
+            if (currentScore != null && currentScore >= record.score()) {
+                return currentScore.intValue();
+            }
+            transaction.set(bestRef, toDocument(record));
+            return record.score();
+        }), "updating personal best");
+    }
+
+    // One-shot copy of every player's best from the raw history, for boards that predate player_best
+    public boolean backfillFromHistory() throws IOException, InterruptedException {
+        DocumentReference marker = firestore.collection(FirebaseService.LEADERBOARDS_COLLECTION)
+                .document(MIGRATIONS_DOCUMENT);
+        DocumentSnapshot migrations = await(marker.get(), "reading migrations");
+        if (migrations.contains(BACKFILL_FIELD)) {
+            backfilled = true;
+            return false;
+        }
+
+        Map<String, ScoreRecord> bests = new HashMap<>();
+        int scanned = 0;
+        Query query = firestore.collection(FirebaseService.LEADERBOARD_COLLECTION)
+                .orderBy(FieldPath.documentId())
+                .limit(BACKFILL_PAGE_SIZE);
+        List<QueryDocumentSnapshot> documents;
+        do {
+            documents = await(query.get(), "reading score history").getDocuments();
+            for (QueryDocumentSnapshot document : documents) {
+                String username = document.getString("username");
+                Long score = document.getLong("score");
+                if (username == null || username.isEmpty() || score == null) {
+                    continue;
+                }
+                Long timestamp = document.getLong("timestamp");
+                ScoreRecord record = new ScoreRecord(0, document.getString("playerId"), username, score.intValue(),
+                        timestamp != null ? timestamp : 0L, document.getString("difficulty"));
+                bests.merge(record.partition() + "/" + record.playerKey(), record,
+                        (current, candidate) -> candidate.score() > current.score() ? candidate : current);
+            }
+            scanned += documents.size();
+            if (!documents.isEmpty()) {
+                query = query.startAfter(documents.get(documents.size() - 1));
+            }
+        } while (documents.size() == BACKFILL_PAGE_SIZE);
+
+        // recordBest only ever raises a best, so clients racing through this at the same time stay consistent
+        for (ScoreRecord record : bests.values()) {
+            recordBest(record);
+        }
+        await(marker.set(Map.of(BACKFILL_FIELD, System.currentTimeMillis()), SetOptions.merge()),
+                "recording backfill");
+        backfilled = true;
+        System.out.println("Backfilled " + bests.size() + " personal bests from " + scanned + " history scores");
+        return true;
+    }
+
+    @Override
+    public List<LeaderboardEntry> topScores(String difficulty, int limit) throws IOException, InterruptedException {
+        return page(difficulty, null, limit).entries();
+    }
+
+    @Override
+    public LeaderboardPage page(String difficulty, LeaderboardPage.Cursor after, int pageSize)
+            throws IOException, InterruptedException {
+        Query query = partition(difficulty).bests
+                .orderBy("score", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING)
+                .limit(pageSize);
+        if (after != null) {
+            query = query.startAfter(after.score(), after.documentId());
+        }
+
+        List<QueryDocumentSnapshot> documents = await(query.get(), "retrieving leaderboard page").getDocuments();
+        if (documents.isEmpty() && after == null && !backfilled) {
+            return historyPage(difficulty, pageSize);
+        }
+        LeaderboardPage.Cursor next = null;
+        if (documents.size() == pageSize) {
+            QueryDocumentSnapshot last = documents.get(documents.size() - 1);
+            Long lastScore = last.getLong("score");
+            next = new LeaderboardPage.Cursor(lastScore != null ? lastScore : 0, last.getId());
+        }
+        return new LeaderboardPage(toEntries(documents), next);
+    }
+
+    // Until the backfill has run an empty board may just be unmigrated, so rank the raw history instead
+    private LeaderboardPage historyPage(String difficulty, int pageSize) throws IOException, InterruptedException {
+        List<QueryDocumentSnapshot> documents = await(firestore.collection(FirebaseService.LEADERBOARD_COLLECTION)
+                .whereEqualTo("difficulty", difficulty)
+                .orderBy("score", Query.Direction.DESCENDING)
+                .limit(pageSize * HISTORY_OVERFETCH)
+                .get(), "retrieving leaderboard history").getDocuments();
+
+        Map<String, LeaderboardEntry> bests = new LinkedHashMap<>();
+        for (QueryDocumentSnapshot document : documents) {
+            if (bests.size() == pageSize) {
+                break;
+            }
+            String username = document.getString("username");
+            Long score = document.getLong("score");
+            if (username == null || username.isEmpty() || score == null) {
+                continue;
+            }
+            String playerKey = documentId(new ScoreRecord(0, document.getString("playerId"), username, 0, 0,
+                    difficulty).playerKey());
+            bests.putIfAbsent(playerKey, new LeaderboardEntry(playerKey, username, score.intValue()));
+        }
+        return new LeaderboardPage(new ArrayList<>(bests.values()), null);
+    }
+
+    @Override
+    public List<LeaderboardEntry> allScores(String difficulty) throws IOException, InterruptedException {
+        return toEntries(await(partition(difficulty).bests.get(), "retrieving all scores").getDocuments());
+    }
+
+    @Override
+    public OptionalInt rankOf(String difficulty, int score) {
+        Partition partition = partition(difficulty);
+        return partition.indexReady ? OptionalInt.of(partition.index.rankOf(score)) : OptionalInt.empty();
+    }
+
+    @Override
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void close() {
+        for (Partition partition : partitions.values()) {
+            if (partition.registration != null) {
+                partition.registration.remove();
+            }
+        }
+    }
+
+    private static List<LeaderboardEntry> toEntries(List<QueryDocumentSnapshot> documents) {
+        List<LeaderboardEntry> entries = new ArrayList<>(documents.size());
+        for (QueryDocumentSnapshot document : documents) {
+            String username = document.getString("username");
+            Long scoreLong = document.getLong("score");
+            if (username != null && !username.isEmpty()) {
+                entries.add(new LeaderboardEntry(document.getId(), username,
+                        scoreLong != null ? scoreLong.intValue() : 0));
+            }
+        }
+        return entries;
+    }
+
+    // Usernames stand in for player ids on old scores and may contain '/', which Firestore reads as a path
+    static String documentId(String playerKey) {
+        String id = playerKey.replace("%", "%25").replace("/", "%2F");
+        if (id.equals(".") || id.equals("..") || (id.startsWith("__") && id.endsWith("__"))) {
+            id = String.format("%%%02X", (int) id.charAt(0)) + id.substring(1);
+        }
+        return id;
+    }
+
+    private static <T> T await(ApiFuture<T> future, String operation) throws IOException, InterruptedException {
+        try {
+            return future.get(QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Error " + operation + ": " + e.getMessage(), e);
+        }
+    }
+
+    static Map<String, Object> toDocument(ScoreRecord record) {
+        Map<String, Object> scoreData = new HashMap<>();
+        scoreData.put("playerId", record.playerKey());
+        scoreData.put("username", record.username());
+        scoreData.put("score", record.score());
+        scoreData.put("difficulty", record.partition());
+        scoreData.put("timestamp", record.timestamp());
+        return scoreData;
+    }
+
+    private static final class Partition {
+        private final CollectionReference bests;
+        private final LeaderboardIndex index = new LeaderboardIndex();
+        private volatile boolean indexReady;
+        private ListenerRegistration registration;
+
+        private Partition(CollectionReference bests) {
+            this.bests = bests;
+        }
+    }
+}
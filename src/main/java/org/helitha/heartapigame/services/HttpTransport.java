@@ -0,0 +1,220 @@
+package org.helitha.heartapigame.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import javax.net.ssl.SSLSession;
+
+public class HttpTransport {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration WARM_UP_TIMEOUT = Duration.ofSeconds(5);
+    private static final int DEFAULT_THREADS = 4;
+    private static final String KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+    private static final String DEFAULT_KEEP_ALIVE_SECONDS = "300";
+
+    private static HttpTransport instance;
+
+    private final HttpClient client;
+    private final ExecutorService executor;
+    private final Executor decodeExecutor;
+    private final Map<String, HostMetrics> hosts = new ConcurrentHashMap<>();
+
+    public HttpTransport(ExecutorService executor, Executor decodeExecutor) {
+        this.executor = executor;
+        this.decodeExecutor = decodeExecutor;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .executor(executor)
+                .build();
+    }
+
+    public static synchronized HttpTransport getInstance() {
+        if (instance == null) {
+            // Idle connections are dropped after 30s by default, long before the player reaches login
+            if (System.getProperty(KEEP_ALIVE_PROPERTY) == null) {
+                System.setProperty(KEEP_ALIVE_PROPERTY, DEFAULT_KEEP_ALIVE_SECONDS);
+            }
+            int threads = Integer.getInteger("heartapi.http.threads", DEFAULT_THREADS);
+            AtomicInteger counter = new AtomicInteger();
+            instance = new HttpTransport(Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "http-transport-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }), ForkJoinPool.commonPool());
+        }
+        return instance;
+    }
+
+    public HttpRequest.Builder newRequest(URI uri) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(uri)
+                .header("Accept-Encoding", "gzip");
+        if ("http".equalsIgnoreCase(uri.getScheme())) {
+            // Cleartext HTTP/2 needs an h2c upgrade that local stub servers do not understand
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+        return builder;
+    }
+
+    public CompletableFuture<HttpResponse<byte[]>> sendAsync(HttpRequest request) {
+        HostMetrics metrics = metricsFor(request.uri());
+        long startNs = System.nanoTime();
+        metrics.inFlight.incrementAndGet();
+        // Bodies are buffered by the client, then decoded off its executor so callers never block it
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, error) -> {
+                    metrics.inFlight.decrementAndGet();
+                    if (error != null) {
+                        metrics.failures.increment();
+                        return;
+                    }
+                    metrics.requests.increment();
+                    metrics.version = response.version();
+                    metrics.latencies.record((System.nanoTime() - startNs) / 1_000_000);
+                })
+                .thenApplyAsync(HttpTransport::decode, decodeExecutor);
+    }
+
+    public CompletableFuture<byte[]> sendForBytes(HttpRequest request) {
+        return sendAsync(request).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new UncheckedIOException(new IOException("Request to " + request.uri().getHost()
+                        + " failed with status code: " + response.statusCode()));
+            }
+            return response.body();
+        });
+    }
+
+    public CompletableFuture<Void> warmUp(Collection<URI> targets) {
+        List<CompletableFuture<?>> probes = new ArrayList<>();
+        for (URI origin : origins(targets)) {
+            HostMetrics metrics = metricsFor(origin);
+            if (metrics.warmUpMs >= 0) {
+                continue;
+            }
+            HttpRequest request = newRequest(origin)
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .timeout(WARM_UP_TIMEOUT)
+                    .build();
+            long startNs = System.nanoTime();
+            probes.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long elapsedMs = (System.nanoTime() - startNs) / 1_000_000;
+                        if (error != null) {
+                            System.err.println("Warm-up of " + origin.getHost() + " failed after "
+                                    + elapsedMs + "ms: " + error.getMessage());
+                            return;
+                        }
+                        metrics.warmUpMs = elapsedMs;
+                        metrics.version = response.version();
+                        System.out.println("Warmed up " + origin.getHost() + " in " + elapsedMs + "ms over "
+                                + response.version());
+                    })
+                    .exceptionally(error -> null));
+        }
+        return CompletableFuture.allOf(probes.toArray(CompletableFuture[]::new));
+    }
+
+    public Map<String, HostMetrics> getHostMetrics() {
+        return Map.copyOf(hosts);
+    }
+
+    public String getStats() {
+        StringBuilder stats = new StringBuilder();
+        hosts.forEach((host, metrics) -> {
+            if (!stats.isEmpty()) {
+                stats.append(" | ");
+            }
+            stats.append(host).append(": ").append(metrics);
+        });
+        return stats.toString();
+    }
+
+    private HostMetrics metricsFor(URI uri) {
+        return hosts.computeIfAbsent(uri.getHost() + (uri.getPort() > 0 ? ":" + uri.getPort() : ""),
+                ignored -> new HostMetrics());
+    }
+
+    private static Collection<URI> origins(Collection<URI> targets) {
+        LinkedHashSet<URI> origins = new LinkedHashSet<>();
+        for (URI target : targets) {
+            origins.add(URI.create(target.getScheme() + "://" + target.getRawAuthority() + "/"));
+        }
+        return origins;
+    }
+
+    private static HttpResponse<byte[]> decode(HttpResponse<byte[]> response) {
+        boolean gzipped = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        if (!gzipped) {
+            return response;
+        }
+        try (InputStream body = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            return new DecodedResponse(response, body.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static final class HostMetrics {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LatencyTracker latencies = new LatencyTracker(100);
+        private volatile HttpClient.Version version;
+        private volatile long warmUpMs = -1;
+
+        public long getRequests() { return requests.sum(); }
+        public long getFailures() { return failures.sum(); }
+        public int getInFlight() { return inFlight.get(); }
+        public LatencyTracker getLatencies() { return latencies; }
+        public HttpClient.Version getVersion() { return version; }
+        public long getWarmUpMs() { return warmUpMs; }
+
+        @Override
+        public String toString() {
+            return "requests=" + getRequests()
+                    + ", failures=" + getFailures()
+                    + ", inFlight=" + getInFlight()
+                    + ", protocol=" + (version != null ? version : "unknown")
+                    + ", warmUp=" + (warmUpMs >= 0 ? warmUpMs + "ms" : "none")
+                    + ", latency " + latencies;
+        }
+    }
+
+    private record DecodedResponse(HttpResponse<byte[]> delegate, byte[] body)
+            implements HttpResponse<byte[]> {
+        @Override public int statusCode() { return delegate.statusCode(); }
+        @Override public HttpRequest request() { return delegate.request(); }
+        @Override public Optional<HttpResponse<byte[]>> previousResponse() { return delegate.previousResponse(); }
+        @Override public HttpHeaders headers() { return delegate.headers(); }
+        @Override public Optional<SSLSession> sslSession() { return delegate.sslSession(); }
+        @Override public URI uri() { return delegate.uri(); }
+        @Override public HttpClient.Version version() { return delegate.version(); }
+    }
+}
@@ -0,0 +1,127 @@
+package org.helitha.heartapigame.services;
+
+import org.helitha.heartapigame.models.LeaderboardEntry;
+import org.helitha.heartapigame.models.LeaderboardPage;
+import org.helitha.heartapigame.models.ScoreRecord;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class InMemoryLeaderboardRepository implements LeaderboardRepository {
+
+    // Same order as the Firestore query: score descending, then document id descending
+    private static final Comparator<ScoreRecord> ORDER = Comparator.comparingInt(ScoreRecord::score).reversed()
+            .thenComparing(ScoreRecord::playerKey, Comparator.reverseOrder());
+
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    @Override
+    public synchronized int recordBest(ScoreRecord record) {
+        Partition partition = partition(record.partition());
+        String playerKey = record.playerKey();
+        ScoreRecord current = partition.bests.get(playerKey);
+        if (current != null && current.score() >= record.score()) {
+            return current.score();
+        }
+
+        if (current != null) {
+            partition.ordered.remove(current);
+        }
+        partition.bests.put(playerKey, record);
+        partition.ordered.add(record);
+        partition.index.upsert(playerKey, record.username(), record.score(), record.timestamp());
+        for (ChangeListener listener : listeners) {
+            listener.onBestChanged(record);
+        }
+        return record.score();
+    }
+
+    @Override
+    public List<LeaderboardEntry> topScores(String difficulty, int limit) {
+        return page(difficulty, null, limit).entries();
+    }
+
+    @Override
+    public LeaderboardPage page(String difficulty, LeaderboardPage.Cursor after, int pageSize) {
+        NavigableSet<ScoreRecord> ordered = partition(difficulty).ordered;
+        NavigableSet<ScoreRecord> view = after == null ? ordered
+                : ordered.tailSet(new ScoreRecord(0, after.documentId(), null, (int) after.score(), 0, difficulty), false);
+
+        List<LeaderboardEntry> entries = new ArrayList<>(pageSize);
+        ScoreRecord last = null;
+        for (ScoreRecord record : view) {
+            if (entries.size() == pageSize) {
+                break;
+            }
+            entries.add(new LeaderboardEntry(record.playerKey(), record.username(), record.score()));
+            last = record;
+        }
+
+        LeaderboardPage.Cursor next = entries.size() == pageSize && last != null
+                ? new LeaderboardPage.Cursor(last.score(), last.playerKey()) : null;
+        return new LeaderboardPage(entries, next);
+    }
+
+    @Override
+    public List<LeaderboardEntry> allScores(String difficulty) {
+        Map<String, ScoreRecord> bests = partition(difficulty).bests;
+        List<LeaderboardEntry> entries = new ArrayList<>(bests.size());
+        for (ScoreRecord record : bests.values()) {
+            entries.add(new LeaderboardEntry(record.playerKey(), record.username(), record.score()));
+        }
+        return entries;
+    }
+
+    @Override
+    public OptionalInt rankOf(String difficulty, int score) {
+        return OptionalInt.of(partition(difficulty).index.rankOf(score));
+    }
+
+    @Override
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Partition partition : partitions.values()) {
+            size += partition.bests.size();
+        }
+        return size;
+    }
+
+    ScoreRecord bestOf(String difficulty, String playerKey) {
+        return partition(difficulty).bests.get(playerKey);
+    }
+
+    List<ScoreRecord> snapshot() {
+        List<ScoreRecord> records = new ArrayList<>();
+        for (Partition partition : partitions.values()) {
+            records.addAll(partition.bests.values());
+        }
+        return records;
+    }
+
+    private Partition partition(String difficulty) {
+        return partitions.computeIfAbsent(difficulty, ignored -> new Partition());
+    }
+
+    private static final class Partition {
+        private final Map<String, ScoreRecord> bests = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListSet<ScoreRecord> ordered = new ConcurrentSkipListSet<>(ORDER);
+        private final LeaderboardIndex index = new LeaderboardIndex();
+    }
+}
@@ -0,0 +1,194 @@
+package org.helitha.heartapigame.services;
+
+import org.helitha.heartapigame.models.LeaderboardEntry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class LeaderboardIndex {
+
+    private final Map<String, Node> nodesById = new HashMap<>();
+    private final Random random = new Random();
+    private Node root;
+
+    public synchronized void upsert(String id, String username, int score, long timestamp) {
+        Node existing = nodesById.get(id);
+        if (existing != null) {
+            if (existing.score == score && existing.timestamp == timestamp
+                    && existing.username.equals(username)) {
+                return;
+            }
+            root = delete(root, existing);
+        }
+
+        Node node = new Node(id, username, score, timestamp, random.nextInt());
+        root = insert(root, node);
+        nodesById.put(id, node);
+    }
+
+    public synchronized void remove(String id) {
+        Node existing = nodesById.remove(id);
+        if (existing != null) {
+            root = delete(root, existing);
+        }
+    }
+
+    public synchronized void clear() {
+        nodesById.clear();
+        root = null;
+    }
+
+    public synchronized int size() {
+        return size(root);
+    }
+
+    public synchronized List<LeaderboardEntry> topK(int k) {
+        return range(0, k);
+    }
+
+    public synchronized int rankOf(int score) {
+        int higher = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.score > score) {
+                higher += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return higher + 1;
+    }
+
+    public synchronized List<LeaderboardEntry> around(int rank, int radius) {
+        int from = Math.max(0, rank - 1 - radius);
+        return range(from, rank - 1 - from + radius + 1);
+    }
+
+    public synchronized List<LeaderboardEntry> range(int from, int count) {
+        List<LeaderboardEntry> entries = new ArrayList<>(Math.max(0, Math.min(count, size(root) - from)));
+        collect(root, from, count, entries);
+        return entries;
+    }
+
+    private void collect(Node node, int skip, int count, List<LeaderboardEntry> out) {
+        if (node == null || out.size() >= count) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (skip < leftSize) {
+            collect(node.left, skip, count, out);
+        }
+        if (out.size() < count && skip <= leftSize) {
+            out.add(new LeaderboardEntry(node.id, node.username, node.score));
+        }
+        if (out.size() < count) {
+            collect(node.right, Math.max(0, skip - leftSize - 1), count, out);
+        }
+    }
+
+    private static int compare(Node a, Node b) {
+        if (a.score != b.score) {
+            return Integer.compare(b.score, a.score);
+        }
+        if (a.timestamp != b.timestamp) {
+            return Long.compare(a.timestamp, b.timestamp);
+        }
+        return a.id.compareTo(b.id);
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (compare(inserted, node) < 0) {
+            node.left = insert(node.left, inserted);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, inserted);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node delete(Node node, Node target) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(target, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, target);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, target);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            if (node.left.priority > node.right.priority) {
+                node = rotateRight(node);
+                node.right = delete(node.right, target);
+            } else {
+                node = rotateLeft(node);
+                node.left = delete(node.left, target);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node {
+        private final String id;
+        private final String username;
+        private final int score;
+        private final long timestamp;
+        private final int priority;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        private Node(String id, String username, int score, long timestamp, int priority) {
+            this.id = id;
+            this.username = username;
+            this.score = score;
+            this.timestamp = timestamp;
+            this.priority = priority;
+        }
+    }
+}
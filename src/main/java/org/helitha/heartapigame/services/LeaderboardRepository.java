@@ -0,0 +1,55 @@
+package org.helitha.heartapigame.services;
+
+import com.google.cloud.firestore.Firestore;
+import org.helitha.heartapigame.models.LeaderboardEntry;
+import org.helitha.heartapigame.models.LeaderboardPage;
+import org.helitha.heartapigame.models.ScoreRecord;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.OptionalInt;
+
+public interface LeaderboardRepository {
+
+    Path DEFAULT_FILE_PATH = Path.of("data", "leaderboard.jsonl");
+
+    String name();
+
+    int recordBest(ScoreRecord record) throws IOException, InterruptedException;
+
+    List<LeaderboardEntry> topScores(String difficulty, int limit) throws IOException, InterruptedException;
+
+    LeaderboardPage page(String difficulty, LeaderboardPage.Cursor after, int pageSize)
+            throws IOException, InterruptedException;
+
+    List<LeaderboardEntry> allScores(String difficulty) throws IOException, InterruptedException;
+
+    OptionalInt rankOf(String difficulty, int score);
+
+    void addChangeListener(ChangeListener listener);
+
+    interface ChangeListener {
+        void onBestChanged(ScoreRecord best);
+
+        void onBestRemoved(String difficulty, String playerKey);
+    }
+
+    static LeaderboardRepository createConfigured(Firestore firestore) {
+        String engine = System.getProperty("heartapi.leaderboard", "firestore");
+        switch (engine.toLowerCase()) {
+            case "memory":
+                return new InMemoryLeaderboardRepository();
+            case "file":
+                Path path = Path.of(System.getProperty("heartapi.leaderboard.path", DEFAULT_FILE_PATH.toString()));
+                try {
+                    return new FileLeaderboardRepository(path);
+                } catch (IOException e) {
+                    System.err.println("Failed to open leaderboard file " + path + ": " + e.getMessage());
+                    return null;
+                }
+            default:
+                return firestore != null ? new FirestoreLeaderboardRepository(firestore) : null;
+        }
+    }
+}
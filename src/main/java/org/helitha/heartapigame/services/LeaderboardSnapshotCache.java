@@ -0,0 +1,222 @@
+package org.helitha.heartapigame.services;
+
+import org.helitha.heartapigame.models.LeaderboardEntry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LeaderboardSnapshotCache {
+
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int LOAD_THREADS = 4;
+    // Top-K pages fit easily, unbounded lists such as all/<difficulty> stay in memory only
+    private static final int MAX_PERSISTED_ROWS = 100;
+
+    private final Path path;
+    private final long ttlMs;
+    private final ExecutorService loaders;
+    private final ExecutorService saver;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, CompletableFuture<List<LeaderboardEntry>>> refreshing = new HashMap<>();
+    private boolean saveScheduled;
+    private long hits;
+    private long staleHits;
+    private long misses;
+
+    public LeaderboardSnapshotCache(Path path, Duration ttl) {
+        this.path = path;
+        this.ttlMs = ttl.toMillis();
+        AtomicInteger counter = new AtomicInteger();
+        // A slow revalidation must not hold up cold misses for other keys, or the snapshot write
+        this.loaders = Executors.newFixedThreadPool(LOAD_THREADS, r -> {
+            Thread t = new Thread(r, "leaderboard-load-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.saver = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "leaderboard-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        load();
+    }
+
+    public List<LeaderboardEntry> get(String key, Loader loader) {
+        Optional<List<LeaderboardEntry>> cached = peek(key, loader);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        synchronized (this) {
+            misses++;
+        }
+        try {
+            return revalidate(key, loader).join();
+        } catch (CompletionException e) {
+            System.err.println("Error loading " + key + ": " + e.getCause().getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    public synchronized Optional<List<LeaderboardEntry>> peek(String key, Loader loader) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (isStale(entry)) {
+            staleHits++;
+            revalidate(key, loader);
+        } else {
+            hits++;
+        }
+        return Optional.of(copy(entry.value()));
+    }
+
+    public synchronized boolean isFresh(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && !isStale(entry);
+    }
+
+    public synchronized CompletableFuture<List<LeaderboardEntry>> revalidate(String key, Loader loader) {
+        CompletableFuture<List<LeaderboardEntry>> pending = refreshing.get(key);
+        if (pending != null) {
+            return pending;
+        }
+
+        CompletableFuture<List<LeaderboardEntry>> refresh = CompletableFuture.supplyAsync(() -> {
+            try {
+                return loader.load();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }, loaders);
+        refreshing.put(key, refresh);
+        refresh.whenComplete((value, error) -> {
+            synchronized (this) {
+                refreshing.remove(key);
+                if (error == null) {
+                    entries.put(key, new Entry(copy(value), System.currentTimeMillis()));
+                    scheduleSave();
+                }
+            }
+        });
+        return refresh.thenApply(LeaderboardSnapshotCache::copy);
+    }
+
+    private boolean isStale(Entry entry) {
+        return System.currentTimeMillis() - entry.fetchedAt() > ttlMs;
+    }
+
+    private void scheduleSave() {
+        if (saveScheduled) {
+            return;
+        }
+        saveScheduled = true;
+        saver.execute(this::save);
+    }
+
+    private void load() {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_VERSION) {
+                return;
+            }
+            int keys = in.readInt();
+            for (int k = 0; k < keys; k++) {
+                String key = in.readUTF();
+                long fetchedAt = in.readLong();
+                int count = in.readInt();
+                List<LeaderboardEntry> value = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    String playerId = in.readBoolean() ? in.readUTF() : null;
+                    value.add(new LeaderboardEntry(playerId, in.readUTF(), in.readInt()));
+                }
+                entries.put(key, new Entry(value, fetchedAt));
+            }
+            System.out.println("Leaderboard snapshot loaded: " + entries.size() + " cached queries");
+        } catch (IOException e) {
+            System.err.println("Leaderboard snapshot unreadable, starting cold: " + e.getMessage());
+            entries.clear();
+        }
+    }
+
+    private void save() {
+        Map<String, Entry> snapshot;
+        synchronized (this) {
+            saveScheduled = false;
+            snapshot = new HashMap<>();
+            entries.forEach((key, entry) -> {
+                if (entry.value().size() <= MAX_PERSISTED_ROWS) {
+                    snapshot.put(key, entry);
+                }
+            });
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> cached : snapshot.entrySet()) {
+                    out.writeUTF(cached.getKey());
+                    out.writeLong(cached.getValue().fetchedAt());
+                    out.writeInt(cached.getValue().value().size());
+                    for (LeaderboardEntry entry : cached.getValue().value()) {
+                        out.writeBoolean(entry.getPlayerId() != null);
+                        if (entry.getPlayerId() != null) {
+                            out.writeUTF(entry.getPlayerId());
+                        }
+                        out.writeUTF(entry.getUsername() != null ? entry.getUsername() : "");
+                        out.writeInt(entry.getScore());
+                    }
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error saving leaderboard snapshot: " + e.getMessage());
+        }
+    }
+
+    private static List<LeaderboardEntry> copy(List<LeaderboardEntry> value) {
+        List<LeaderboardEntry> copy = new ArrayList<>(value.size());
+        for (LeaderboardEntry entry : value) {
+            copy.add(new LeaderboardEntry(entry.getPlayerId(), entry.getUsername(), entry.getScore()));
+        }
+        return copy;
+    }
+
+    public synchronized String getStats() {
+        return "entries=" + entries.size() + ", hits=" + hits + ", staleHits=" + staleHits + ", misses=" + misses;
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        List<LeaderboardEntry> load() throws IOException, InterruptedException;
+    }
+
+    private record Entry(List<LeaderboardEntry> value, long fetchedAt) {
+    }
+}
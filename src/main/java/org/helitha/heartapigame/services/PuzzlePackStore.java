@@ -0,0 +1,280 @@
+package org.helitha.heartapigame.services;
+
+import org.helitha.heartapigame.models.GameData;
+import org.helitha.heartapigame.models.Puzzle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+public class PuzzlePackStore {
+
+    private static final int INDEX_MAGIC = 0x50504B31;
+    private static final int INDEX_HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    private static final int INDEX_ENTRY_BYTES = Long.BYTES + Integer.BYTES;
+    private static final double COMPACT_TARGET_RATIO = 0.75;
+
+    private final Path packPath;
+    private final Path indexPath;
+    private final long maxPackBytes;
+    private final List<Entry> entries = new ArrayList<>();
+    private final Set<String> questions = new HashSet<>();
+    private final Random random = new Random();
+
+    private MappedByteBuffer mapped;
+    private long packSize;
+    private long generation;
+    private Path currentPack;
+
+    public PuzzlePackStore(Path packPath, Path indexPath, long maxPackBytes) {
+        this.packPath = packPath;
+        this.indexPath = indexPath;
+        this.maxPackBytes = maxPackBytes;
+        this.currentPack = packPath;
+        load();
+    }
+
+    private synchronized void load() {
+        try {
+            Files.createDirectories(packPath.toAbsolutePath().getParent());
+            if (!Files.exists(indexPath)) {
+                deletePacks(null);
+                return;
+            }
+
+            ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+            if (index.remaining() < INDEX_HEADER_BYTES || index.getInt() != INDEX_MAGIC) {
+                throw new IOException("unknown index format");
+            }
+            generation = index.getLong();
+            currentPack = packFile(generation);
+            packSize = Files.size(currentPack);
+            while (index.remaining() >= INDEX_ENTRY_BYTES) {
+                long offset = index.getLong();
+                int length = index.getInt();
+                if (offset + length > packSize) {
+                    break;
+                }
+                entries.add(new Entry(offset, length));
+            }
+            remap();
+            for (Entry entry : entries) {
+                questions.add(decode(entry).gameData().question());
+            }
+            deletePacks(currentPack);
+            System.out.println("Offline puzzle pack loaded: " + entries.size() + " puzzles, " + packSize + " bytes");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Offline puzzle pack unreadable, starting fresh: " + e.getMessage());
+            entries.clear();
+            questions.clear();
+            mapped = null;
+            packSize = 0;
+            generation = 0;
+            currentPack = packPath;
+            try {
+                Files.deleteIfExists(indexPath);
+            } catch (IOException ignored) {
+            }
+            deletePacks(null);
+        }
+    }
+
+    public synchronized void append(Puzzle puzzle) {
+        GameData gameData = puzzle.gameData();
+        if (questions.contains(gameData.question())) {
+            return;
+        }
+
+        byte[] question = gameData.question().getBytes(StandardCharsets.UTF_8);
+        byte[] image = puzzle.imageBytes();
+        int length = Integer.BYTES * 4 + question.length + image.length;
+        if (length > maxPackBytes) {
+            return;
+        }
+
+        try {
+            if (packSize + length > maxPackBytes) {
+                compact((long) (maxPackBytes * COMPACT_TARGET_RATIO) - length);
+            }
+
+            ByteBuffer record = ByteBuffer.allocate(length);
+            record.putInt(gameData.solution());
+            record.putInt(gameData.carrots());
+            record.putInt(question.length);
+            record.put(question);
+            record.putInt(image.length);
+            record.put(image);
+            record.flip();
+
+            ByteBuffer indexEntry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+            indexEntry.putLong(packSize);
+            indexEntry.putInt(length);
+            indexEntry.flip();
+
+            try (FileChannel pack = FileChannel.open(currentPack, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                while (record.hasRemaining()) {
+                    pack.write(record);
+                }
+            }
+            try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (index.size() == 0) {
+                    writeHeader(index, generation);
+                }
+                while (indexEntry.hasRemaining()) {
+                    index.write(indexEntry);
+                }
+            }
+
+            entries.add(new Entry(packSize, length));
+            questions.add(gameData.question());
+            packSize += length;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error writing offline puzzle pack: " + e.getMessage());
+        }
+    }
+
+    public synchronized Optional<Puzzle> randomPuzzle() {
+        if (entries.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            Entry entry = entries.get(random.nextInt(entries.size()));
+            if (mapped == null || entry.offset() + entry.length() > mapped.capacity()) {
+                remap();
+            }
+            return Optional.of(decode(entry));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading offline puzzle pack: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long sizeInBytes() {
+        return packSize;
+    }
+
+    private void remap() throws IOException {
+        try (FileChannel pack = FileChannel.open(currentPack, StandardOpenOption.READ)) {
+            mapped = pack.map(FileChannel.MapMode.READ_ONLY, 0, pack.size());
+        }
+    }
+
+    private Path packFile(long packGeneration) {
+        return packGeneration == 0 ? packPath : packPath.resolveSibling(packPath.getFileName() + "." + packGeneration);
+    }
+
+    private static void writeHeader(FileChannel index, long packGeneration) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_BYTES);
+        header.putInt(INDEX_MAGIC).putLong(packGeneration).flip();
+        while (header.hasRemaining()) {
+            index.write(header);
+        }
+    }
+
+    // Windows keeps a mapped file until the GC releases it, so a pack that cannot go yet is retried at next load
+    private void deletePacks(Path keep) {
+        String name = packPath.getFileName().toString();
+        try (DirectoryStream<Path> siblings = Files.newDirectoryStream(packPath.toAbsolutePath().getParent(),
+                name + "*")) {
+            for (Path sibling : siblings) {
+                String suffix = sibling.getFileName().toString().substring(name.length());
+                boolean pack = suffix.isEmpty() || suffix.matches("\\.\\d+");
+                if (pack && (keep == null || !sibling.getFileName().equals(keep.getFileName()))) {
+                    try {
+                        Files.deleteIfExists(sibling);
+                    } catch (IOException e) {
+                        System.err.println("Could not delete old offline puzzle pack " + sibling + ": " + e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not list offline puzzle packs: " + e.getMessage());
+        }
+    }
+
+    private Puzzle decode(Entry entry) {
+        ByteBuffer record = mapped.slice((int) entry.offset(), entry.length());
+        int solution = record.getInt();
+        int carrots = record.getInt();
+        byte[] question = new byte[record.getInt()];
+        record.get(question);
+        byte[] image = new byte[record.getInt()];
+        record.get(image);
+        return new Puzzle(new GameData(new String(question, StandardCharsets.UTF_8), solution, carrots), image, true);
+    }
+
+    private void compact(long targetBytes) throws IOException {
+        // Records appended since the last map lie past its end
+        remap();
+
+        int keepFrom = entries.size();
+        long keptBytes = 0;
+        while (keepFrom > 0 && keptBytes + entries.get(keepFrom - 1).length() <= targetBytes) {
+            keepFrom--;
+            keptBytes += entries.get(keepFrom).length();
+        }
+
+        long nextGeneration = generation + 1;
+        Path nextPack = packFile(nextGeneration);
+        Path indexTmp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        List<Entry> kept = new ArrayList<>();
+        Set<String> keptQuestions = new HashSet<>();
+        long offset = 0;
+
+        try (FileChannel pack = FileChannel.open(nextPack, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel index = FileChannel.open(indexTmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(index, nextGeneration);
+            for (Entry entry : entries.subList(keepFrom, entries.size())) {
+                ByteBuffer record = mapped.slice((int) entry.offset(), entry.length());
+                while (record.hasRemaining()) {
+                    pack.write(record);
+                }
+                ByteBuffer indexEntry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+                indexEntry.putLong(offset).putInt(entry.length()).flip();
+                while (indexEntry.hasRemaining()) {
+                    index.write(indexEntry);
+                }
+                kept.add(new Entry(offset, entry.length()));
+                keptQuestions.add(decode(entry).gameData().question());
+                offset += entry.length();
+            }
+        }
+
+        // The index names the pack it belongs to, so replacing it switches packs in one step
+        Files.move(indexTmp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        generation = nextGeneration;
+        currentPack = nextPack;
+        mapped = null;
+        deletePacks(currentPack);
+
+        System.out.println("Offline puzzle pack compacted: evicted " + keepFrom + " puzzles, kept " + kept.size());
+        entries.clear();
+        entries.addAll(kept);
+        questions.clear();
+        questions.addAll(keptQuestions);
+        packSize = offset;
+    }
+
+    private record Entry(long offset, int length) {
+    }
+}
@@ -0,0 +1,18 @@
+package org.helitha.heartapigame.services;
+
+import org.helitha.heartapigame.models.Puzzle;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+public interface PuzzleSource {
+
+    CompletableFuture<Puzzle> fetchPuzzleAsync(Instant deadline);
+
+    Optional<Puzzle> offlinePuzzle();
+
+    default boolean isAvailable() {
+        return true;
+    }
+}
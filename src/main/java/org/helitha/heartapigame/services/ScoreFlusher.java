@@ -0,0 +1,134 @@
+package org.helitha.heartapigame.services;
+
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import org.helitha.heartapigame.models.ScoreRecord;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class ScoreFlusher {
+
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final long COMMIT_TIMEOUT_SECONDS = 30;
+    private static final long MAX_BACKOFF_MS = 60_000;
+
+    private final ScoreJournal journal;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Integer> personalBests = new ConcurrentHashMap<>();
+    private Firestore firestore;
+    private LeaderboardRepository leaderboard;
+    private WindowBestStore windowBests;
+    private boolean flushScheduled;
+    private int consecutiveFailures;
+
+    public ScoreFlusher(ScoreJournal journal) {
+        this.journal = journal;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "score-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public synchronized void start(Firestore firestore, LeaderboardRepository leaderboard) {
+        this.firestore = firestore;
+        this.leaderboard = leaderboard;
+        this.windowBests = firestore != null ? new WindowBestStore(firestore) : null;
+        requestFlush();
+    }
+
+    public synchronized void requestFlush() {
+        if (leaderboard == null || flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        scheduler.execute(this::flush);
+    }
+
+    private void flush() {
+        Firestore db;
+        LeaderboardRepository repository;
+        WindowBestStore hourlyBests;
+        synchronized (this) {
+            flushScheduled = false;
+            db = firestore;
+            repository = leaderboard;
+            hourlyBests = windowBests;
+        }
+
+        List<ScoreRecord> batch = journal.pending(MAX_BATCH_SIZE);
+        if (repository == null || batch.isEmpty()) {
+            return;
+        }
+
+        Map<String, ScoreRecord> bestPerPlayer = new HashMap<>();
+        for (ScoreRecord record : batch) {
+            bestPerPlayer.merge(personalBestKey(record), record,
+                    (current, candidate) -> candidate.score() > current.score() ? candidate : current);
+        }
+
+        try {
+            if (db != null) {
+                CollectionReference history = db.collection(FirebaseService.LEADERBOARD_COLLECTION);
+                WriteBatch writeBatch = db.batch();
+                for (ScoreRecord record : batch) {
+                    writeBatch.set(history.document(journal.documentId(record)),
+                            FirestoreLeaderboardRepository.toDocument(record));
+                }
+                writeBatch.commit().get(COMMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            for (ScoreRecord record : bestPerPlayer.values()) {
+                updatePersonalBest(repository, record);
+            }
+            if (hourlyBests != null) {
+                hourlyBests.recordBests(batch);
+            }
+            journal.acknowledge(batch.get(batch.size() - 1).sequence());
+            consecutiveFailures = 0;
+            System.out.println("Uploaded " + batch.size() + " journaled scores to " + repository.name()
+                    + " leaderboard, " + journal.pendingCount() + " pending");
+
+            if (journal.pendingCount() > 0) {
+                requestFlush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | IOException e) {
+            consecutiveFailures++;
+            long backoffMs = Math.min(MAX_BACKOFF_MS, 1000L << Math.min(consecutiveFailures, 16));
+            System.err.println("Error uploading journaled scores, retrying in " + backoffMs + "ms: " + e.getMessage());
+            synchronized (this) {
+                flushScheduled = true;
+            }
+            scheduler.schedule(this::flush, backoffMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void updatePersonalBest(LeaderboardRepository repository, ScoreRecord record)
+            throws IOException, InterruptedException {
+        String key = personalBestKey(record);
+        Integer cachedBest = personalBests.get(key);
+        if (cachedBest != null && record.score() <= cachedBest) {
+            return;
+        }
+        personalBests.put(key, repository.recordBest(record));
+    }
+
+    private static String personalBestKey(ScoreRecord record) {
+        return record.partition() + "/" + record.playerKey();
+    }
+
+    public Integer getCachedPersonalBest(String playerKey, String difficulty) {
+        return personalBests.get(difficulty + "/" + playerKey);
+    }
+}
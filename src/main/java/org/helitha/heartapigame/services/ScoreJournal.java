@@ -0,0 +1,241 @@
+package org.helitha.heartapigame.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.helitha.heartapigame.models.ScoreRecord;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ScoreJournal {
+
+    private static final long COMPACT_THRESHOLD_BYTES = 256 * 1024;
+
+    private final Path journalPath;
+    private final Path ackPath;
+    private final ObjectReader recordReader;
+    private final ObjectWriter recordWriter;
+    private final ExecutorService writer;
+    private final NavigableMap<Long, ScoreRecord> unacknowledged = new ConcurrentSkipListMap<>();
+    private final List<PendingWrite> writtenSinceSync = new ArrayList<>();
+    private final NavigableMap<Long, CompletableFuture<Void>> uploadWaiters = new ConcurrentSkipListMap<>();
+    private long uploadedSequence;
+
+    private FileChannel channel;
+    private String installId;
+    private long acknowledgedSequence;
+    private long nextSequence = 1;
+    private boolean syncScheduled;
+
+    public ScoreJournal(Path journalPath, Path ackPath) {
+        this.journalPath = journalPath;
+        this.ackPath = ackPath;
+        ObjectMapper objectMapper = new ObjectMapper();
+        this.recordReader = objectMapper.readerFor(ScoreRecord.class);
+        this.recordWriter = objectMapper.writerFor(ScoreRecord.class);
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "score-journal");
+            t.setDaemon(true);
+            return t;
+        });
+        replay();
+    }
+
+    private void replay() {
+        try {
+            Files.createDirectories(journalPath.toAbsolutePath().getParent());
+            readAck();
+
+            long highestSequence = acknowledgedSequence;
+            if (Files.exists(journalPath)) {
+                try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        try {
+                            ScoreRecord record = recordReader.readValue(line);
+                            highestSequence = Math.max(highestSequence, record.sequence());
+                            if (record.sequence() > acknowledgedSequence) {
+                                unacknowledged.put(record.sequence(), record);
+                            }
+                        } catch (IOException e) {
+                            System.err.println("Skipping damaged score journal entry: " + e.getMessage());
+                        }
+                    }
+                }
+            }
+            nextSequence = highestSequence + 1;
+
+            rewriteJournal();
+            if (!unacknowledged.isEmpty()) {
+                System.out.println("Score journal replay: " + unacknowledged.size() + " scores waiting for upload");
+            }
+        } catch (IOException e) {
+            System.err.println("Error opening score journal: " + e.getMessage());
+        }
+    }
+
+    private void readAck() throws IOException {
+        if (Files.exists(ackPath)) {
+            String[] parts = Files.readString(ackPath, StandardCharsets.UTF_8).trim().split("\\s+");
+            if (parts.length == 2) {
+                installId = parts[0];
+                acknowledgedSequence = Long.parseLong(parts[1]);
+                return;
+            }
+        }
+        installId = UUID.randomUUID().toString();
+        acknowledgedSequence = 0;
+        writeAck();
+    }
+
+    private void writeAck() throws IOException {
+        Path tmp = ackPath.resolveSibling(ackPath.getFileName() + ".tmp");
+        Files.writeString(tmp, installId + " " + acknowledgedSequence, StandardCharsets.UTF_8);
+        Files.move(tmp, ackPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void rewriteJournal() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+
+        Path tmp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (ScoreRecord record : unacknowledged.values()) {
+                write(out, record);
+            }
+            out.force(false);
+        }
+        Files.move(tmp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(journalPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    public synchronized CompletableFuture<ScoreRecord> append(String playerId, String username, int score,
+                                                             String difficulty, long timestamp) {
+        ScoreRecord record = new ScoreRecord(nextSequence++, playerId, username, score, timestamp, difficulty);
+        CompletableFuture<ScoreRecord> durable = new CompletableFuture<>();
+
+        writer.execute(() -> {
+            try {
+                write(channel, record);
+                synchronized (this) {
+                    writtenSinceSync.add(new PendingWrite(record, durable));
+                    // Queued behind any writes already waiting, so one fsync still covers the whole group
+                    if (!syncScheduled) {
+                        syncScheduled = true;
+                        writer.execute(this::sync);
+                    }
+                }
+            } catch (IOException e) {
+                durable.completeExceptionally(e);
+            }
+        });
+        return durable;
+    }
+
+    private void sync() {
+        List<PendingWrite> written;
+        synchronized (this) {
+            syncScheduled = false;
+            written = new ArrayList<>(writtenSinceSync);
+            writtenSinceSync.clear();
+        }
+
+        try {
+            channel.force(false);
+            for (PendingWrite write : written) {
+                unacknowledged.put(write.record().sequence(), write.record());
+                write.durable().complete(write.record());
+            }
+        } catch (IOException e) {
+            System.err.println("Error syncing score journal: " + e.getMessage());
+            written.forEach(write -> write.durable().completeExceptionally(e));
+        }
+    }
+
+    public List<ScoreRecord> pending(int limit) {
+        List<ScoreRecord> records = new ArrayList<>(Math.min(limit, unacknowledged.size()));
+        for (ScoreRecord record : unacknowledged.values()) {
+            if (records.size() >= limit) {
+                break;
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    public int pendingCount() {
+        return unacknowledged.size();
+    }
+
+    public CompletableFuture<Void> whenAcknowledged(long sequence) {
+        synchronized (uploadWaiters) {
+            if (sequence <= uploadedSequence) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return uploadWaiters.computeIfAbsent(sequence, ignored -> new CompletableFuture<>());
+        }
+    }
+
+    public void acknowledge(long upToSequence) {
+        unacknowledged.headMap(upToSequence, true).clear();
+        List<CompletableFuture<Void>> uploaded;
+        synchronized (uploadWaiters) {
+            uploadedSequence = Math.max(uploadedSequence, upToSequence);
+            NavigableMap<Long, CompletableFuture<Void>> done = uploadWaiters.headMap(upToSequence, true);
+            uploaded = new ArrayList<>(done.values());
+            done.clear();
+        }
+        uploaded.forEach(waiter -> waiter.complete(null));
+        writer.execute(() -> {
+            try {
+                boolean idle;
+                synchronized (this) {
+                    acknowledgedSequence = Math.max(acknowledgedSequence, upToSequence);
+                    idle = writtenSinceSync.isEmpty();
+                }
+                writeAck();
+                if (idle && unacknowledged.isEmpty() && channel.size() > COMPACT_THRESHOLD_BYTES) {
+                    rewriteJournal();
+                }
+            } catch (IOException e) {
+                System.err.println("Error recording score acknowledgement: " + e.getMessage());
+            }
+        });
+    }
+
+    public String documentId(ScoreRecord record) {
+        return installId + "-" + record.sequence();
+    }
+
+    private record PendingWrite(ScoreRecord record, CompletableFuture<ScoreRecord> durable) {
+    }
+
+    private void write(FileChannel out, ScoreRecord record) throws IOException {
+        byte[] line = (recordWriter.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
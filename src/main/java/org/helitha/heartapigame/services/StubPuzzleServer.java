@@ -0,0 +1,207 @@
+package org.helitha.heartapigame.services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.helitha.heartapigame.models.GameData;
+import org.helitha.heartapigame.models.Puzzle;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class StubPuzzleServer {
+
+    private static final int IMAGE_WIDTH = 350;
+    private static final int IMAGE_HEIGHT = 250;
+    private static final int MAX_CACHED_PUZZLES = 256;
+
+    private final int port;
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+    private final PuzzlePackStore recordedPuzzles;
+    private final Map<Integer, byte[]> images = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger injectedErrors = new AtomicInteger();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public StubPuzzleServer(int port, long latencyMs, long jitterMs, double errorRate, PuzzlePackStore recordedPuzzles) {
+        this.port = port;
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.errorRate = errorRate;
+        this.recordedPuzzles = recordedPuzzles;
+    }
+
+    public static StubPuzzleServer fromSystemProperties() {
+        int port = Integer.getInteger("heartapi.stub.port", 0);
+        long latencyMs = Long.getLong("heartapi.stub.latencyMs", 150);
+        long jitterMs = Long.getLong("heartapi.stub.jitterMs", 100);
+        double errorRate = Double.parseDouble(System.getProperty("heartapi.stub.errorRate", "0.0"));
+        boolean recorded = Boolean.parseBoolean(System.getProperty("heartapi.stub.recorded", "true"));
+
+        PuzzlePackStore pack = recorded
+                ? new PuzzlePackStore(ApiService.PACK_PATH, ApiService.PACK_INDEX_PATH, ApiService.MAX_PACK_BYTES)
+                : null;
+        return new StubPuzzleServer(port, latencyMs, jitterMs, errorRate, pack);
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "stub-puzzle-server");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/api.php", this::handlePuzzle);
+        server.createContext("/image/", this::handleImage);
+        server.start();
+
+        System.out.println("Stub puzzle server listening on " + getApiUri()
+                + " (latency=" + latencyMs + "ms, jitter=" + jitterMs + "ms, errorRate=" + errorRate + ")");
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    public URI getApiUri() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/api.php");
+    }
+
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    public int getInjectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    private void handlePuzzle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        if (!simulateNetwork(exchange)) {
+            return;
+        }
+
+        Puzzle puzzle = nextPuzzle();
+        int id = nextId.incrementAndGet();
+        images.put(id, puzzle.imageBytes());
+        images.remove(id - MAX_CACHED_PUZZLES);
+
+        String imageUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/image/" + id + ".png";
+        String json = "{\"question\":\"" + imageUrl + "\",\"solution\":" + puzzle.gameData().solution()
+                + ",\"carrots\":" + puzzle.gameData().carrots() + "}";
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        respond(exchange, 200, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void handleImage(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String name = path.substring(path.lastIndexOf('/') + 1).replace(".png", "");
+        byte[] image;
+        try {
+            image = images.get(Integer.parseInt(name));
+        } catch (NumberFormatException e) {
+            image = null;
+        }
+
+        if (image == null) {
+            respond(exchange, 404, new byte[0]);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "image/png");
+        respond(exchange, 200, image);
+    }
+
+    private boolean simulateNetwork(HttpExchange exchange) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyMs + (jitterMs > 0 ? random.nextLong(jitterMs + 1) : 0);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, new byte[0]);
+            return false;
+        }
+
+        if (random.nextDouble() < errorRate) {
+            injectedErrors.incrementAndGet();
+            respond(exchange, 503, new byte[0]);
+            return false;
+        }
+        return true;
+    }
+
+    private Puzzle nextPuzzle() {
+        if (recordedPuzzles != null) {
+            Optional<Puzzle> recorded = recordedPuzzles.randomPuzzle();
+            if (recorded.isPresent()) {
+                return recorded.get();
+            }
+        }
+        return generatePuzzle();
+    }
+
+    private Puzzle generatePuzzle() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int hearts = random.nextInt(10);
+        int carrots = random.nextInt(10);
+
+        BufferedImage image = new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, IMAGE_WIDTH, IMAGE_HEIGHT);
+        g.setColor(Color.RED);
+        for (int i = 0; i < hearts; i++) {
+            g.fillOval(random.nextInt(IMAGE_WIDTH - 30), random.nextInt(IMAGE_HEIGHT - 30), 30, 30);
+        }
+        g.setColor(Color.ORANGE);
+        for (int i = 0; i < carrots; i++) {
+            g.fillRect(random.nextInt(IMAGE_WIDTH - 12), random.nextInt(IMAGE_HEIGHT - 36), 12, 36);
+        }
+        g.dispose();
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", out);
+            return new Puzzle(new GameData("generated", hearts, carrots), out.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
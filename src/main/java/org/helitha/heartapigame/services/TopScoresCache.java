@@ -0,0 +1,147 @@
+package org.helitha.heartapigame.services;
+
+import org.helitha.heartapigame.models.LeaderboardEntry;
+import org.helitha.heartapigame.models.ScoreRecord;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class TopScoresCache implements LeaderboardRepository.ChangeListener {
+
+    private final int capacity;
+    private final Map<String, Partition> partitions = new HashMap<>();
+    private long hits;
+    private long misses;
+
+    public TopScoresCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized Optional<List<LeaderboardEntry>> get(String difficulty, int limit) {
+        Partition partition = partitions.get(difficulty);
+        if (partition == null || !partition.warm || limit > capacity) {
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        List<LeaderboardEntry> top = new ArrayList<>(Math.min(limit, partition.entries.size()));
+        for (LeaderboardEntry entry : partition.entries.subList(0, Math.min(limit, partition.entries.size()))) {
+            top.add(new LeaderboardEntry(entry.getPlayerId(), entry.getUsername(), entry.getScore()));
+        }
+        return Optional.of(top);
+    }
+
+    public synchronized boolean isWarm(String difficulty) {
+        Partition partition = partitions.get(difficulty);
+        return partition != null && partition.warm;
+    }
+
+    // Called before the query so changes that land while it runs are kept and replayed onto its result
+    public synchronized void beginLoad(String difficulty) {
+        Partition partition = partitions.computeIfAbsent(difficulty, ignored -> new Partition());
+        if (!partition.warm) {
+            partition.loads++;
+        }
+    }
+
+    public synchronized void fill(String difficulty, List<LeaderboardEntry> top) {
+        Partition partition = partitions.get(difficulty);
+        if (partition == null || partition.warm || partition.loads == 0) {
+            // Warm entries have been kept current by change events, so they are newer than this result
+            return;
+        }
+        partition.entries.clear();
+        for (LeaderboardEntry entry : top.subList(0, Math.min(capacity, top.size()))) {
+            partition.entries.add(new LeaderboardEntry(entry.getPlayerId(), entry.getUsername(), entry.getScore()));
+        }
+        partition.warm = true;
+        partition.loads = 0;
+        List<Runnable> buffered = new ArrayList<>(partition.buffered);
+        partition.buffered.clear();
+        for (Runnable change : buffered) {
+            change.run();
+        }
+    }
+
+    public synchronized void cancelLoad(String difficulty) {
+        Partition partition = partitions.get(difficulty);
+        if (partition != null && !partition.warm && partition.loads > 0 && --partition.loads == 0) {
+            partition.buffered.clear();
+        }
+    }
+
+    public synchronized void invalidate(String difficulty) {
+        partitions.remove(difficulty);
+    }
+
+    @Override
+    public synchronized void onBestChanged(ScoreRecord best) {
+        Partition partition = partitions.get(best.partition());
+        if (partition == null) {
+            return;
+        }
+        if (!partition.warm) {
+            if (partition.loads > 0) {
+                partition.buffered.add(() -> onBestChanged(best));
+            }
+            return;
+        }
+
+        List<LeaderboardEntry> entries = partition.entries;
+        entries.removeIf(entry -> best.playerKey().equals(entry.getPlayerId()));
+        int position = 0;
+        while (position < entries.size() && ranksAbove(entries.get(position), best)) {
+            position++;
+        }
+        if (position < capacity) {
+            entries.add(position, new LeaderboardEntry(best.playerKey(), best.username(), best.score()));
+        }
+        while (entries.size() > capacity) {
+            entries.remove(entries.size() - 1);
+        }
+    }
+
+    @Override
+    public synchronized void onBestRemoved(String difficulty, String playerKey) {
+        Partition partition = partitions.get(difficulty);
+        if (partition == null) {
+            return;
+        }
+        if (!partition.warm) {
+            if (partition.loads > 0) {
+                partition.buffered.add(() -> onBestRemoved(difficulty, playerKey));
+            }
+            return;
+        }
+        boolean wasFull = partition.entries.size() == capacity;
+        if (partition.entries.removeIf(entry -> playerKey.equals(entry.getPlayerId())) && wasFull) {
+            // The next entry below the cut is unknown, so reload on the next read
+            partition.warm = false;
+        }
+    }
+
+    private static boolean ranksAbove(LeaderboardEntry entry, ScoreRecord best) {
+        if (entry.getScore() != best.score()) {
+            return entry.getScore() > best.score();
+        }
+        return entry.getPlayerId() != null && entry.getPlayerId().compareTo(best.playerKey()) > 0;
+    }
+
+    public synchronized String getStats() {
+        return "partitions=" + partitions.size() + ", hits=" + hits + ", misses=" + misses;
+    }
+
+    private static final class Partition {
+        private final List<LeaderboardEntry> entries = new ArrayList<>();
+        private final List<Runnable> buffered = new ArrayList<>();
+        private boolean warm;
+        private int loads;
+    }
+}
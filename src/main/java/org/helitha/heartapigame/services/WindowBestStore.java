@@ -0,0 +1,142 @@
+package org.helitha.heartapigame.services;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import org.helitha.heartapigame.models.ScoreRecord;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+// Each player's best per difficulty and hour, so rolling boards never depend on the all-time best
+public class WindowBestStore {
+
+    static final String HOURLY_BEST_COLLECTION = "player_hourly_best";
+    private static final long HOUR_MS = Duration.ofHours(1).toMillis();
+    private static final long QUERY_TIMEOUT_SECONDS = 30;
+
+    private final Firestore firestore;
+    private final Map<String, Integer> recorded = new ConcurrentHashMap<>();
+
+    public WindowBestStore(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    public void recordBests(Collection<ScoreRecord> records) throws IOException, InterruptedException {
+        for (Map.Entry<String, ScoreRecord> candidate : hourlyBests(records).entrySet()) {
+            String id = candidate.getKey();
+            ScoreRecord record = candidate.getValue();
+            Integer known = recorded.get(id);
+            if (known != null && known >= record.score()) {
+                continue;
+            }
+            DocumentReference bestRef = firestore.collection(HOURLY_BEST_COLLECTION).document(id);
+            int best = await(firestore.runTransaction(transaction -> {
+                DocumentSnapshot current = transaction.get(bestRef).get();
+                Long currentScore = current.exists() ? current.getLong("score") : null;
+                if (currentScore != null && currentScore >= record.score()) {
+                    return currentScore.intValue();
+                }
+                Map<String, Object> document = FirestoreLeaderboardRepository.toDocument(record);
+                document.put("hour", hourOf(record.timestamp()));
+                transaction.set(bestRef, document);
+                return record.score();
+            }), "updating hourly best");
+            recorded.put(id, best);
+        }
+    }
+
+    // The initial snapshot seeds the boards, later changes keep them current
+    public ListenerRegistration listen(long sinceMs, BiConsumer<String, ScoreRecord> onBest) {
+        return hourlyQuery(sinceMs).addSnapshotListener((snapshots, error) -> {
+            if (error != null) {
+                System.err.println("Rolling leaderboard listener error: " + error.getMessage());
+                return;
+            }
+            if (snapshots == null) {
+                return;
+            }
+            for (DocumentChange change : snapshots.getDocumentChanges()) {
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    continue;
+                }
+                ScoreRecord record = toRecord(change.getDocument());
+                if (record != null) {
+                    onBest.accept(scoreId(change.getDocument().getId(), record), record);
+                }
+            }
+        });
+    }
+
+    public List<ScoreRecord> loadSince(long sinceMs) throws IOException, InterruptedException {
+        List<ScoreRecord> records = new ArrayList<>();
+        for (QueryDocumentSnapshot document : await(hourlyQuery(sinceMs).get(), "reading hourly bests").getDocuments()) {
+            ScoreRecord record = toRecord(document);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private Query hourlyQuery(long sinceMs) {
+        return firestore.collection(HOURLY_BEST_COLLECTION).whereGreaterThanOrEqualTo("hour", hourOf(sinceMs));
+    }
+
+    static Map<String, ScoreRecord> hourlyBests(Collection<ScoreRecord> records) {
+        Map<String, ScoreRecord> bests = new HashMap<>();
+        for (ScoreRecord record : records) {
+            bests.merge(documentId(record), record,
+                    (current, candidate) -> candidate.score() > current.score() ? candidate : current);
+        }
+        return bests;
+    }
+
+    static String documentId(ScoreRecord record) {
+        return FirestoreLeaderboardRepository.documentId(record.partition() + "/" + hourOf(record.timestamp())
+                + "/" + record.playerKey());
+    }
+
+    // A raised hourly best is a new score for the windows, the lower one simply expires
+    static String scoreId(String documentId, ScoreRecord record) {
+        return documentId + "@" + record.score();
+    }
+
+    static long hourOf(long timestamp) {
+        return Math.floorDiv(timestamp, HOUR_MS);
+    }
+
+    private static ScoreRecord toRecord(QueryDocumentSnapshot document) {
+        String username = document.getString("username");
+        Long score = document.getLong("score");
+        Long timestamp = document.getLong("timestamp");
+        if (username == null || username.isEmpty() || score == null || timestamp == null) {
+            return null;
+        }
+        return new ScoreRecord(0, document.getString("playerId"), username, score.intValue(), timestamp,
+                document.getString("difficulty"));
+    }
+
+    private static <T> T await(ApiFuture<T> future, String operation) throws IOException, InterruptedException {
+        try {
+            return future.get(QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Error " + operation + ": " + e.getMessage(), e);
+        }
+    }
+}
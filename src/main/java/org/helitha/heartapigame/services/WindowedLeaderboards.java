@@ -0,0 +1,150 @@
+package org.helitha.heartapigame.services;
+
+import org.helitha.heartapigame.models.LeaderboardEntry;
+import org.helitha.heartapigame.models.LeaderboardWindow;
+import org.helitha.heartapigame.models.ScoreRecord;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class WindowedLeaderboards {
+
+    private static final Comparator<ScoreRecord> BEST_FIRST = Comparator.comparingInt(ScoreRecord::score).reversed()
+            .thenComparingLong(ScoreRecord::timestamp)
+            .thenComparingLong(ScoreRecord::sequence);
+
+    private final Map<String, Board> boards = new HashMap<>();
+    private final PriorityQueue<Expiry> expiries = new PriorityQueue<>(Comparator.comparingLong(Expiry::expiresAt));
+    private final Set<String> liveScoreIds = new HashSet<>();
+    private final LeaderboardWindow longestWindow;
+    private final ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> scheduledExpiry;
+    private long scheduledExpiryAt = Long.MAX_VALUE;
+    private long expired;
+
+    public WindowedLeaderboards() {
+        LeaderboardWindow longest = null;
+        for (LeaderboardWindow window : LeaderboardWindow.values()) {
+            if (window.isRolling() && (longest == null || window.getLength().compareTo(longest.getLength()) > 0)) {
+                longest = window;
+            }
+        }
+        this.longestWindow = longest;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "leaderboard-windows");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public synchronized void accept(String scoreId, ScoreRecord record) {
+        long now = System.currentTimeMillis();
+        if (record.timestamp() + longestWindow.getLength().toMillis() <= now || !liveScoreIds.add(scoreId)) {
+            return;
+        }
+
+        for (LeaderboardWindow window : LeaderboardWindow.values()) {
+            if (!window.isRolling()) {
+                continue;
+            }
+            long expiresAt = record.timestamp() + window.getLength().toMillis();
+            if (expiresAt > now) {
+                board(record.partition(), window).add(record);
+                expiries.add(new Expiry(expiresAt, window, scoreId, record));
+            }
+        }
+        scheduleNextExpiry();
+    }
+
+    private synchronized void expire() {
+        scheduledExpiry = null;
+        scheduledExpiryAt = Long.MAX_VALUE;
+        long now = System.currentTimeMillis();
+        int count = 0;
+        while (!expiries.isEmpty() && expiries.peek().expiresAt() <= now) {
+            Expiry expiry = expiries.poll();
+            board(expiry.record().partition(), expiry.window()).remove(expiry.record());
+            if (expiry.window() == longestWindow) {
+                liveScoreIds.remove(expiry.scoreId());
+            }
+            count++;
+        }
+        expired += count;
+        if (count > 0) {
+            System.out.println("Expired " + count + " scores from rolling leaderboards - " + getStats());
+        }
+        scheduleNextExpiry();
+    }
+
+    private void scheduleNextExpiry() {
+        Expiry next = expiries.peek();
+        if (next == null || next.expiresAt() >= scheduledExpiryAt) {
+            return;
+        }
+        if (scheduledExpiry != null) {
+            scheduledExpiry.cancel(false);
+        }
+        scheduledExpiryAt = next.expiresAt();
+        long delayMs = Math.max(0, next.expiresAt() - System.currentTimeMillis());
+        scheduledExpiry = scheduler.schedule(this::expire, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized List<LeaderboardEntry> topScores(String difficulty, LeaderboardWindow window, int limit) {
+        return board(difficulty, window).index.topK(limit);
+    }
+
+    public synchronized OptionalInt rankOf(String difficulty, LeaderboardWindow window, int score) {
+        return OptionalInt.of(board(difficulty, window).index.rankOf(score));
+    }
+
+    public synchronized String getStats() {
+        return "boards=" + boards.size() + ", liveScores=" + liveScoreIds.size()
+                + ", pendingExpiries=" + expiries.size() + ", expired=" + expired;
+    }
+
+    private Board board(String difficulty, LeaderboardWindow window) {
+        return boards.computeIfAbsent(difficulty + "/" + window, ignored -> new Board());
+    }
+
+    private static final class Board {
+        private final Map<String, TreeSet<ScoreRecord>> scoresByPlayer = new HashMap<>();
+        private final LeaderboardIndex index = new LeaderboardIndex();
+
+        private void add(ScoreRecord record) {
+            TreeSet<ScoreRecord> scores = scoresByPlayer.computeIfAbsent(record.playerKey(),
+                    ignored -> new TreeSet<>(BEST_FIRST));
+            scores.add(record);
+            if (scores.first() == record) {
+                index.upsert(record.playerKey(), record.username(), record.score(), record.timestamp());
+            }
+        }
+
+        private void remove(ScoreRecord record) {
+            TreeSet<ScoreRecord> scores = scoresByPlayer.get(record.playerKey());
+            if (scores == null || !scores.remove(record)) {
+                return;
+            }
+            if (scores.isEmpty()) {
+                scoresByPlayer.remove(record.playerKey());
+                index.remove(record.playerKey());
+            } else {
+                ScoreRecord best = scores.first();
+                index.upsert(best.playerKey(), best.username(), best.score(), best.timestamp());
+            }
+        }
+    }
+
+    private record Expiry(long expiresAt, LeaderboardWindow window, String scoreId, ScoreRecord record) {
+    }
+}
@@ -0,0 +1,56 @@
+package org.helitha.heartapigame.managers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrioritySchedulerTest {
+
+    private static final int MAX_CONCURRENCY = 8;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final PriorityScheduler scheduler = new PriorityScheduler(executor, MAX_CONCURRENCY);
+    private final Semaphore interactiveRelease = new Semaphore(0);
+
+    @AfterEach
+    void shutdown() {
+        interactiveRelease.release(1_000);
+        executor.shutdown();
+    }
+
+    @Test
+    void interactiveUsesEveryIdleSlot() {
+        submitBlockingInteractive(MAX_CONCURRENCY + 2);
+
+        assertEquals(MAX_CONCURRENCY, scheduler.getRunning(TaskPriority.INTERACTIVE));
+        assertEquals(2, scheduler.getQueueDepth(TaskPriority.INTERACTIVE));
+    }
+
+    @Test
+    void freedSlotGoesToAStarvedLaneBeforeQueuedInteractiveWork() throws Exception {
+        submitBlockingInteractive(MAX_CONCURRENCY + 4);
+        CountDownLatch prefetchRan = new CountDownLatch(1);
+        CountDownLatch backgroundRan = new CountDownLatch(1);
+        scheduler.submit(TaskPriority.PREFETCH, prefetchRan::countDown);
+        scheduler.submit(TaskPriority.BACKGROUND, backgroundRan::countDown);
+
+        interactiveRelease.release(1);
+        assertTrue(prefetchRan.await(5, TimeUnit.SECONDS));
+        interactiveRelease.release(1);
+        assertTrue(backgroundRan.await(5, TimeUnit.SECONDS));
+    }
+
+    private void submitBlockingInteractive(int tasks) {
+        for (int i = 0; i < tasks; i++) {
+            scheduler.submit(TaskPriority.INTERACTIVE, interactiveRelease::acquireUninterruptibly);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.helitha.heartapigame.managers;
+
+import org.helitha.heartapigame.models.GameData;
+import org.helitha.heartapigame.models.PreparedRound;
+import org.helitha.heartapigame.models.Puzzle;
+import org.helitha.heartapigame.services.BloomFilter;
+import org.helitha.heartapigame.services.PuzzleSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoundBufferTest {
+
+    private static byte[] png;
+
+    private final AsyncManager async = new AsyncManager(Runnable::run);
+
+    @BeforeAll
+    static void encodeImage() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "png", out);
+        png = out.toByteArray();
+    }
+
+    @Test
+    void missWithHealthySourceWaitsForLivePuzzle() throws Exception {
+        StubSource source = new StubSource(true, 200);
+        RoundBuffer buffer = newBuffer(source, Duration.ofSeconds(5));
+
+        PreparedRound round = take(buffer);
+
+        assertTrue(round.gameData().question().startsWith("live-"), round.gameData().question());
+        assertEquals(0, source.offlineDraws.get());
+        assertEquals(0, buffer.getOfflineServed());
+    }
+
+    @Test
+    void missWithUnavailableSourceServesPackRightAway() throws Exception {
+        StubSource source = new StubSource(false, -1);
+        RoundBuffer buffer = newBuffer(source, Duration.ofSeconds(5));
+
+        PreparedRound round = take(buffer);
+
+        assertTrue(round.gameData().question().startsWith("pack-"), round.gameData().question());
+        assertEquals(1, buffer.getOfflineServed());
+    }
+
+    @Test
+    void slowHealthySourceFallsBackToPackAfterTheDelay() throws Exception {
+        StubSource source = new StubSource(true, -1);
+        RoundBuffer buffer = newBuffer(source, Duration.ofMillis(100));
+
+        PreparedRound round = take(buffer);
+
+        assertTrue(round.gameData().question().startsWith("pack-"), round.gameData().question());
+        assertEquals(1, buffer.getOfflineServed());
+    }
+
+    private RoundBuffer newBuffer(StubSource source, Duration offlineFallbackDelay) {
+        return new RoundBuffer(1, source, new BloomFilter(100, 0.01), async, offlineFallbackDelay);
+    }
+
+    private static PreparedRound take(RoundBuffer buffer) throws Exception {
+        CompletableFuture<PreparedRound> result = new CompletableFuture<>();
+        buffer.take(Instant.now().plusSeconds(10), result::complete, result::completeExceptionally);
+        try {
+            return result.get(10, TimeUnit.SECONDS);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    // Live puzzles arrive after latencyMs, or never when it is negative
+    private static final class StubSource implements PuzzleSource {
+        private final boolean available;
+        private final long latencyMs;
+        private final AtomicInteger liveFetches = new AtomicInteger();
+        private final AtomicInteger offlineDraws = new AtomicInteger();
+
+        private StubSource(boolean available, long latencyMs) {
+            this.available = available;
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        public CompletableFuture<Puzzle> fetchPuzzleAsync(Instant deadline) {
+            CompletableFuture<Puzzle> fetch = new CompletableFuture<>();
+            if (latencyMs >= 0) {
+                Puzzle puzzle = new Puzzle(new GameData("live-" + liveFetches.incrementAndGet() + "-" + System.nanoTime(),
+                        1, 1), png);
+                fetch.completeOnTimeout(puzzle, latencyMs, TimeUnit.MILLISECONDS);
+            }
+            return fetch;
+        }
+
+        @Override
+        public Optional<Puzzle> offlinePuzzle() {
+            return Optional.of(new Puzzle(new GameData("pack-" + offlineDraws.incrementAndGet() + "-" + System.nanoTime(),
+                    1, 1), png, true));
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return available;
+        }
+    }
+}
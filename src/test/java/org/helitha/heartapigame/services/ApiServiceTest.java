@@ -0,0 +1,46 @@
+package org.helitha.heartapigame.services;
+
+import org.helitha.heartapigame.models.GameData;
+import org.helitha.heartapigame.models.Puzzle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApiServiceTest {
+
+    private StubPuzzleServer stub;
+    private ApiService source;
+
+    @BeforeEach
+    void start() throws IOException {
+        stub = new StubPuzzleServer(0, 0, 0, 0.0, null);
+        stub.start();
+        source = new ApiService(stub.getApiUri(), null);
+    }
+
+    @AfterEach
+    void stop() {
+        stub.stop();
+    }
+
+    @Test
+    void parsesGameDataFromBufferedBody() throws Exception {
+        GameData gameData = source.fetchGameDataAsync().get(10, TimeUnit.SECONDS);
+
+        assertNotNull(gameData.question());
+        assertTrue(gameData.solution() >= 0);
+    }
+
+    @Test
+    void fetchesPuzzleWithImage() throws Exception {
+        Puzzle puzzle = source.fetchPuzzleAsync().get(10, TimeUnit.SECONDS);
+
+        assertTrue(puzzle.imageBytes().length > 0);
+    }
+}
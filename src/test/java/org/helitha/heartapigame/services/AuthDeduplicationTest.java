@@ -0,0 +1,52 @@
+package org.helitha.heartapigame.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class AuthDeduplicationTest {
+
+    @Test
+    void identicalAttemptsShareOneRequest() {
+        Map<String, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+        AtomicInteger requests = new AtomicInteger();
+        CompletableFuture<String> response = new CompletableFuture<>();
+
+        CompletableFuture<String> first = FirebaseService.deduplicate(pending, "Alice@example.com", "secret", () -> {
+            requests.incrementAndGet();
+            return response;
+        });
+        CompletableFuture<String> second = FirebaseService.deduplicate(pending, "alice@example.com", "secret", () -> {
+            requests.incrementAndGet();
+            return response;
+        });
+
+        assertSame(first, second);
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void correctedPasswordStartsItsOwnRequest() {
+        Map<String, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+        CompletableFuture<String> wrong = new CompletableFuture<>();
+        CompletableFuture<String> right = new CompletableFuture<>();
+
+        CompletableFuture<String> first = FirebaseService.deduplicate(pending, "alice@example.com", "secrte",
+                () -> wrong);
+        CompletableFuture<String> second = FirebaseService.deduplicate(pending, "alice@example.com", "secret",
+                () -> right);
+        wrong.completeExceptionally(new IllegalStateException("INVALID_PASSWORD"));
+        right.complete("signed in");
+
+        assertNotSame(first, second);
+        assertEquals("signed in", second.join());
+        assertEquals(0, pending.size());
+    }
+}
@@ -0,0 +1,59 @@
+package org.helitha.heartapigame.services;
+
+import org.helitha.heartapigame.models.LeaderboardEntry;
+import org.helitha.heartapigame.models.ScoreRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileLeaderboardRepositoryTest extends LeaderboardRepositoryConformanceTest {
+
+    @TempDir
+    Path dir;
+
+    private FileLeaderboardRepository file;
+
+    @Override
+    protected LeaderboardRepository createRepository() throws Exception {
+        file = new FileLeaderboardRepository(dir.resolve("leaderboard.jsonl"));
+        return file;
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        file.close();
+    }
+
+    @Test
+    void reloadsBestsFromTheLog() throws Exception {
+        file.recordBest(new ScoreRecord(1, "conf-a", "Alice", 50, 1, easy));
+        file.recordBest(new ScoreRecord(2, "conf-a", "Alice", 70, 2, easy));
+        file.recordBest(new ScoreRecord(3, "conf-b", "Bob", 60, 3, easy));
+        file.close();
+
+        FileLeaderboardRepository reloaded = new FileLeaderboardRepository(dir.resolve("leaderboard.jsonl"));
+        try {
+            List<LeaderboardEntry> top = reloaded.topScores(easy, 10);
+            assertEquals(List.of("Alice", "Bob"), top.stream().map(LeaderboardEntry::getUsername).toList());
+            assertEquals(70, top.get(0).getScore());
+        } finally {
+            reloaded.close();
+        }
+    }
+
+    @Test
+    void onlyImprovedBestsAreAppended() throws Exception {
+        file.recordBest(new ScoreRecord(1, "conf-a", "Alice", 50, 1, easy));
+        file.recordBest(new ScoreRecord(2, "conf-a", "Alice", 50, 2, easy));
+        file.recordBest(new ScoreRecord(3, "conf-a", "Alice", 40, 3, easy));
+        file.recordBest(new ScoreRecord(4, "conf-a", "Alice", 60, 4, easy));
+
+        assertEquals(2, Files.readAllLines(dir.resolve("leaderboard.jsonl")).size());
+    }
+}
@@ -0,0 +1,27 @@
+package org.helitha.heartapigame.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FirestoreDocumentIdTest {
+
+    @Test
+    void plainPlayerIdsAreUnchanged() {
+        assertEquals("uQ3x9Lk2", FirestoreLeaderboardRepository.documentId("uQ3x9Lk2"));
+        assertEquals("alice_99", FirestoreLeaderboardRepository.documentId("alice_99"));
+    }
+
+    @Test
+    void slashesAndPercentsAreEscaped() {
+        assertEquals("a%2Fb", FirestoreLeaderboardRepository.documentId("a/b"));
+        assertEquals("100%25%2F", FirestoreLeaderboardRepository.documentId("100%/"));
+    }
+
+    @Test
+    void reservedIdsAreEscaped() {
+        assertEquals("%2E", FirestoreLeaderboardRepository.documentId("."));
+        assertEquals("%2E.", FirestoreLeaderboardRepository.documentId(".."));
+        assertEquals("%5F_name__", FirestoreLeaderboardRepository.documentId("__name__"));
+    }
+}
@@ -0,0 +1,40 @@
+package org.helitha.heartapigame.services;
+
+import com.google.cloud.firestore.FirestoreOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+// Runs against the local emulator only: gcloud emulators firestore start --host-port=localhost:8080
+@EnabledIfEnvironmentVariable(named = "FIRESTORE_EMULATOR_HOST", matches = ".+")
+class FirestoreLeaderboardRepositoryTest extends LeaderboardRepositoryConformanceTest {
+
+    private FirestoreLeaderboardRepository firestore;
+
+    @Override
+    protected LeaderboardRepository createRepository() {
+        firestore = new FirestoreLeaderboardRepository(FirestoreOptions.getDefaultInstance().toBuilder()
+                .setProjectId("demo-heart-api-game").build().getService());
+        return firestore;
+    }
+
+    // Every write is a transaction round trip to the emulator, so keep the run short
+    @Override
+    protected int throughputPlayers() {
+        return 50;
+    }
+
+    @Override
+    protected int throughputWrites() {
+        return 400;
+    }
+
+    @Override
+    protected int throughputThreads() {
+        return 4;
+    }
+
+    @AfterEach
+    void tearDown() {
+        firestore.close();
+    }
+}
@@ -0,0 +1,105 @@
+package org.helitha.heartapigame.services;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HttpTransportTest {
+
+    private static final byte[] PAYLOAD = "{\"question\":\"q\",\"solution\":3}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private ExecutorService clientExecutor;
+    private ExecutorService decodeExecutor;
+    private HttpTransport transport;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/plain", exchange -> {
+            exchange.sendResponseHeaders(200, PAYLOAD.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(PAYLOAD);
+            }
+        });
+        server.createContext("/gzip", exchange -> {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(PAYLOAD);
+            }
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, compressed.size());
+            try (OutputStream out = exchange.getResponseBody()) {
+                compressed.writeTo(out);
+            }
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+
+        clientExecutor = Executors.newFixedThreadPool(1, r -> new Thread(r, "test-client"));
+        decodeExecutor = Executors.newFixedThreadPool(1, r -> new Thread(r, "test-decode"));
+        transport = new HttpTransport(clientExecutor, decodeExecutor);
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+        clientExecutor.shutdownNow();
+        decodeExecutor.shutdownNow();
+    }
+
+    @Test
+    void decodesGzipBodiesOffTheClientExecutor() throws Exception {
+        String[] thread = new String[1];
+        HttpResponse<byte[]> response = transport.sendAsync(transport.newRequest(uri("/gzip")).GET().build())
+                .thenApply(r -> {
+                    thread[0] = Thread.currentThread().getName();
+                    return r;
+                })
+                .get(5, TimeUnit.SECONDS);
+
+        assertArrayEquals(PAYLOAD, response.body());
+        assertFalse(thread[0].startsWith("test-client"));
+    }
+
+    @Test
+    void returnsPlainBodiesAsBytes() throws Exception {
+        byte[] body = transport.sendForBytes(transport.newRequest(uri("/plain")).GET().build())
+                .get(5, TimeUnit.SECONDS);
+
+        assertArrayEquals(PAYLOAD, body);
+        assertEquals(1, transport.getHostMetrics().values().iterator().next().getRequests());
+    }
+
+    @Test
+    void failsOnNonSuccessStatus() {
+        assertThrows(CompletionException.class,
+                () -> transport.sendForBytes(transport.newRequest(uri("/missing")).GET().build()).join());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+}
@@ -0,0 +1,9 @@
+package org.helitha.heartapigame.services;
+
+class InMemoryLeaderboardRepositoryTest extends LeaderboardRepositoryConformanceTest {
+
+    @Override
+    protected LeaderboardRepository createRepository() {
+        return new InMemoryLeaderboardRepository();
+    }
+}
@@ -0,0 +1,63 @@
+package org.helitha.heartapigame.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Run with: mvn test -Dtest=LeaderboardIndexBenchmarkTest -Dheartapi.benchmark=true
+@EnabledIfSystemProperty(named = "heartapi.benchmark", matches = "true")
+class LeaderboardIndexBenchmarkTest {
+
+    private static final int ENTRIES = Integer.getInteger("heartapi.benchmark.entries", 1_000_000);
+    private static final int QUERIES = Integer.getInteger("heartapi.benchmark.queries", 100_000);
+
+    @Test
+    void queriesAtAMillionEntries() {
+        Random random = new Random(42);
+        LeaderboardIndex index = new LeaderboardIndex();
+
+        long startNs = System.nanoTime();
+        for (int i = 0; i < ENTRIES; i++) {
+            index.upsert("doc" + i, "player" + random.nextInt(50_000), random.nextInt(10_000), i);
+        }
+        long insertNs = System.nanoTime() - startNs;
+        assertEquals(ENTRIES, index.size());
+
+        startNs = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            checksum += index.topK(10).size();
+        }
+        long topNs = System.nanoTime() - startNs;
+
+        startNs = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            checksum += index.rankOf(random.nextInt(10_000));
+        }
+        long rankNs = System.nanoTime() - startNs;
+
+        startNs = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            checksum += index.around(1 + random.nextInt(ENTRIES), 5).size();
+        }
+        long aroundNs = System.nanoTime() - startNs;
+
+        startNs = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            int id = random.nextInt(ENTRIES);
+            index.upsert("doc" + id, "player" + id, random.nextInt(10_000), i);
+        }
+        long updateNs = System.nanoTime() - startNs;
+        assertEquals(ENTRIES, index.size());
+
+        System.out.printf("Entries: %d (checksum %d)%n", index.size(), checksum);
+        System.out.printf("Insert: %.0f ns/op%n", (double) insertNs / ENTRIES);
+        System.out.printf("Top 10: %.0f ns/op%n", (double) topNs / QUERIES);
+        System.out.printf("Rank of score: %.0f ns/op%n", (double) rankNs / QUERIES);
+        System.out.printf("Around rank (+/-5): %.0f ns/op%n", (double) aroundNs / QUERIES);
+        System.out.printf("Delta update: %.0f ns/op%n", (double) updateNs / QUERIES);
+    }
+}
@@ -0,0 +1,106 @@
+package org.helitha.heartapigame.services;
+
+import org.helitha.heartapigame.models.LeaderboardEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LeaderboardIndexTest {
+
+    private static final Comparator<Score> ORDER = Comparator.comparingInt(Score::score).reversed()
+            .thenComparingLong(Score::timestamp)
+            .thenComparing(Score::id);
+
+    @Test
+    void ranksCountStrictlyHigherScores() {
+        LeaderboardIndex index = new LeaderboardIndex();
+        index.upsert("a", "Alice", 70, 1);
+        index.upsert("b", "Bob", 70, 2);
+        index.upsert("c", "Cara", 10, 3);
+
+        assertEquals(1, index.rankOf(90));
+        assertEquals(1, index.rankOf(70));
+        assertEquals(3, index.rankOf(20));
+        assertEquals(3, index.rankOf(10));
+        assertEquals(4, index.rankOf(0));
+    }
+
+    @Test
+    void topKBreaksTiesOnEarlierTimestamp() {
+        LeaderboardIndex index = new LeaderboardIndex();
+        index.upsert("b", "Bob", 70, 2);
+        index.upsert("a", "Alice", 70, 1);
+        index.upsert("c", "Cara", 10, 3);
+
+        assertEquals(List.of("Alice", "Bob"), usernames(index.topK(2)));
+        assertEquals(List.of("Alice", "Bob", "Cara"), usernames(index.topK(10)));
+    }
+
+    @Test
+    void updatesAndRemovalsMoveEntries() {
+        LeaderboardIndex index = new LeaderboardIndex();
+        index.upsert("a", "Alice", 50, 1);
+        index.upsert("b", "Bob", 40, 2);
+        index.upsert("b", "Bob", 60, 3);
+
+        assertEquals(List.of("Bob", "Alice"), usernames(index.topK(10)));
+        index.remove("b");
+        assertEquals(List.of("Alice"), usernames(index.topK(10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void randomOperationsMatchASortedList() {
+        Random random = new Random(42);
+        LeaderboardIndex index = new LeaderboardIndex();
+        Map<String, Score> expected = new HashMap<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            String id = "doc" + random.nextInt(2_000);
+            if (random.nextInt(10) == 0) {
+                index.remove(id);
+                expected.remove(id);
+            } else {
+                Score score = new Score(id, random.nextInt(500), i);
+                index.upsert(id, "player-" + id, score.score(), score.timestamp());
+                expected.put(id, score);
+            }
+        }
+
+        List<Score> sorted = new ArrayList<>(expected.values());
+        sorted.sort(ORDER);
+        assertEquals(sorted.size(), index.size());
+        assertEquals(scoreIds(sorted.subList(0, 25)), entryIds(index.topK(25)));
+        assertEquals(scoreIds(sorted.subList(100, 111)), entryIds(index.around(106, 5)));
+        assertEquals(scoreIds(sorted.subList(sorted.size() - 7, sorted.size())),
+                entryIds(index.range(sorted.size() - 7, 50)));
+
+        for (int score = -1; score <= 501; score++) {
+            int threshold = score;
+            int higher = (int) sorted.stream().filter(entry -> entry.score() > threshold).count();
+            assertEquals(higher + 1, index.rankOf(score), "rank of " + score);
+        }
+    }
+
+    private static List<String> usernames(List<LeaderboardEntry> entries) {
+        return entries.stream().map(LeaderboardEntry::getUsername).toList();
+    }
+
+    private static List<String> entryIds(List<LeaderboardEntry> entries) {
+        return entries.stream().map(LeaderboardEntry::getPlayerId).toList();
+    }
+
+    private static List<String> scoreIds(List<Score> scores) {
+        return scores.stream().map(Score::id).toList();
+    }
+
+    private record Score(String id, int score, long timestamp) {
+    }
+}
@@ -0,0 +1,176 @@
+package org.helitha.heartapigame.services;
+
+import org.helitha.heartapigame.models.LeaderboardEntry;
+import org.helitha.heartapigame.models.LeaderboardPage;
+import org.helitha.heartapigame.models.ScoreRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+abstract class LeaderboardRepositoryConformanceTest {
+
+    protected LeaderboardRepository repository;
+    // Fresh board names per test so engines backed by shared storage never see another run's rows
+    protected String easy;
+    protected String hard;
+
+    protected abstract LeaderboardRepository createRepository() throws Exception;
+
+    protected int throughputPlayers() {
+        return 1_000;
+    }
+
+    protected int throughputWrites() {
+        return 20_000;
+    }
+
+    protected int throughputThreads() {
+        return 8;
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        repository = createRepository();
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        easy = "Easy-" + run;
+        hard = "Hard-" + run;
+    }
+
+    @Test
+    void personalBestOnlyIncreases() throws Exception {
+        repository.recordBest(new ScoreRecord(1, "conf-a", "Alice", 50, 1, easy));
+        repository.recordBest(new ScoreRecord(2, "conf-a", "Alice", 30, 2, easy));
+
+        assertEquals(50, repository.recordBest(new ScoreRecord(3, "conf-a", "Alice", 40, 3, easy)));
+        assertEquals(50, repository.recordBest(new ScoreRecord(4, "conf-a", "Alice", 50, 4, easy)));
+        assertEquals(70, repository.recordBest(new ScoreRecord(5, "conf-a", "Alice", 70, 5, easy)));
+        assertEquals(70, repository.topScores(easy, 10).get(0).getScore());
+    }
+
+    @Test
+    void topScoresAreOrderedWithTiesOnPlayerIdDescending() throws Exception {
+        seedEasyBoard();
+
+        List<LeaderboardEntry> top = repository.topScores(easy, 3);
+        assertEquals(3, top.size());
+        assertEquals(List.of(70, 70, 10), top.stream().map(LeaderboardEntry::getScore).toList());
+        assertEquals("Bob", top.get(0).getUsername());
+        assertEquals(3, repository.allScores(easy).size());
+    }
+
+    @Test
+    void pagingVisitsEveryPlayerOnceInTopOrder() throws Exception {
+        seedEasyBoard();
+
+        List<LeaderboardEntry> paged = new ArrayList<>();
+        LeaderboardPage.Cursor cursor = null;
+        do {
+            LeaderboardPage page = repository.page(easy, cursor, 2);
+            paged.addAll(page.entries());
+            cursor = page.next();
+        } while (cursor != null);
+
+        List<String> expected = repository.topScores(easy, 3).stream().map(LeaderboardEntry::getUsername).toList();
+        assertEquals(expected, paged.stream().map(LeaderboardEntry::getUsername).toList());
+    }
+
+    @Test
+    void difficultiesKeepSeparateBoards() throws Exception {
+        seedEasyBoard();
+        repository.recordBest(new ScoreRecord(10, "conf-a", "Alice", 5, 10, hard));
+
+        assertEquals(70, repository.topScores(easy, 1).get(0).getScore());
+        List<LeaderboardEntry> hardBoard = repository.topScores(hard, 10);
+        assertEquals(1, hardBoard.size());
+        assertEquals(5, hardBoard.get(0).getScore());
+    }
+
+    @Test
+    void rankCountsStrictlyHigherScores() throws Exception {
+        seedEasyBoard();
+
+        // Engines without a warm index may not know the rank yet, which is allowed
+        repository.rankOf(easy, 70).ifPresent(rank -> assertEquals(1, rank));
+        repository.rankOf(easy, 20).ifPresent(rank -> assertEquals(3, rank));
+    }
+
+    @Test
+    void concurrentWritesKeepTheHighestScorePerPlayer() throws Exception {
+        int players = throughputPlayers();
+        int threads = throughputThreads();
+        int writesPerThread = throughputWrites() / threads;
+        Map<String, Integer> expected = new ConcurrentHashMap<>();
+        AtomicLong sequence = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Void>> futures = new ArrayList<>();
+
+        long startNs = System.nanoTime();
+        try {
+            for (int t = 0; t < threads; t++) {
+                long seed = t;
+                futures.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < writesPerThread; i++) {
+                        int player = random.nextInt(players);
+                        int score = random.nextInt(100_000);
+                        expected.merge("bench-" + player, score, Math::max);
+                        repository.recordBest(new ScoreRecord(sequence.incrementAndGet(), "bench-" + player,
+                                "player" + player, score, System.currentTimeMillis(), easy));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        long writeNs = System.nanoTime() - startNs;
+
+        startNs = System.nanoTime();
+        List<LeaderboardEntry> paged = new ArrayList<>();
+        int pages = 0;
+        LeaderboardPage.Cursor cursor = null;
+        do {
+            LeaderboardPage page = repository.page(easy, cursor, 25);
+            paged.addAll(page.entries());
+            cursor = page.next();
+            pages++;
+        } while (cursor != null);
+        long pageNs = System.nanoTime() - startNs;
+
+        assertEquals(expected.size(), paged.size());
+        for (LeaderboardEntry entry : paged) {
+            assertEquals(expected.get(entry.getPlayerId()), entry.getScore(), entry.getPlayerId());
+        }
+        for (int i = 1; i < paged.size(); i++) {
+            assertTrue(paged.get(i - 1).getScore() >= paged.get(i).getScore(), "pages must stay in score order");
+        }
+
+        int total = writesPerThread * threads;
+        System.out.printf("[%s] %d writes on %d threads: %.0f writes/s, %.1f us/write%n", repository.name(),
+                total, threads, total / (writeNs / 1e9), writeNs / 1e3 / total);
+        System.out.printf("[%s] paged %d rows in %d pages: %.1f us/page%n", repository.name(),
+                paged.size(), pages, pageNs / 1e3 / pages);
+    }
+
+    private void seedEasyBoard() throws Exception {
+        repository.recordBest(new ScoreRecord(1, "conf-a", "Alice", 70, 1, easy));
+        repository.recordBest(new ScoreRecord(2, "conf-b", "Bob", 70, 2, easy));
+        repository.recordBest(new ScoreRecord(3, "conf-c", "Cara", 10, 3, easy));
+    }
+}
@@ -0,0 +1,75 @@
+package org.helitha.heartapigame.services;
+
+import org.helitha.heartapigame.models.LeaderboardEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeaderboardSnapshotCacheTest {
+
+    private static final LeaderboardSnapshotCache.Loader UNUSED = () -> {
+        throw new AssertionError("unexpected load");
+    };
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void slowLoadDoesNotBlockOtherKeys() throws Exception {
+        LeaderboardSnapshotCache cache = new LeaderboardSnapshotCache(dir.resolve("snapshot.bin"),
+                Duration.ofMinutes(1));
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<List<LeaderboardEntry>> slow = cache.revalidate("top/Easy", () -> {
+            release.await();
+            return rows(1);
+        });
+        CompletableFuture<List<LeaderboardEntry>> fast = cache.revalidate("top/Hard", () -> rows(2));
+
+        try {
+            assertEquals(2, fast.get(5, TimeUnit.SECONDS).size());
+        } finally {
+            release.countDown();
+        }
+        assertEquals(1, slow.get(5, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    void largeListsAreKeptOutOfTheSnapshot() throws Exception {
+        Path path = dir.resolve("snapshot.bin");
+        LeaderboardSnapshotCache cache = new LeaderboardSnapshotCache(path, Duration.ofMinutes(1));
+        // Any snapshot holding top/Easy was taken after all/Easy was cached
+        cache.revalidate("all/Easy", () -> rows(5_000)).get(5, TimeUnit.SECONDS);
+        cache.revalidate("top/Easy", () -> rows(10)).get(5, TimeUnit.SECONDS);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        LeaderboardSnapshotCache reloaded;
+        do {
+            Thread.sleep(20);
+            reloaded = Files.exists(path) ? new LeaderboardSnapshotCache(path, Duration.ofMinutes(1)) : null;
+        } while ((reloaded == null || !reloaded.isFresh("top/Easy")) && System.nanoTime() < deadline);
+
+        assertTrue(reloaded != null && reloaded.isFresh("top/Easy"));
+        assertEquals(10, reloaded.peek("top/Easy", UNUSED).orElseThrow().size());
+        assertTrue(reloaded.peek("all/Easy", UNUSED).isEmpty());
+    }
+
+    private static List<LeaderboardEntry> rows(int count) {
+        List<LeaderboardEntry> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new LeaderboardEntry("p" + i, "player" + i, count - i));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,80 @@
+package org.helitha.heartapigame.services;
+
+import org.helitha.heartapigame.models.GameData;
+import org.helitha.heartapigame.models.Puzzle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PuzzlePackStoreTest {
+
+    private static final int IMAGE_BYTES = 1000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void compactsAfterAppendsPastTheCurrentMapping() throws IOException {
+        Path pack = dir.resolve("puzzles.pack");
+        Path index = dir.resolve("puzzles.idx");
+        PuzzlePackStore store = new PuzzlePackStore(pack, index, 10 * IMAGE_BYTES);
+
+        store.append(puzzle(0));
+        store.append(puzzle(1));
+        assertTrue(store.randomPuzzle().isPresent());
+
+        // These land past the mapping taken above, and the last few force a compaction
+        for (int i = 2; i < 20; i++) {
+            store.append(puzzle(i));
+        }
+
+        int afterCompaction = store.size();
+        assertTrue(afterCompaction > 0 && afterCompaction < 20);
+        assertTrue(store.sizeInBytes() <= 10 * IMAGE_BYTES);
+        assertTrue(store.randomPuzzle().isPresent());
+        assertFalse(Files.exists(pack));
+        assertEquals(1, packFiles());
+
+        store.append(puzzle(20));
+        assertEquals(afterCompaction + 1, store.size());
+
+        PuzzlePackStore reopened = new PuzzlePackStore(pack, index, 10 * IMAGE_BYTES);
+        assertEquals(store.size(), reopened.size());
+        assertTrue(reopened.randomPuzzle().isPresent());
+    }
+
+    @Test
+    void startsFreshFromAnIndexWithoutAHeader() throws IOException {
+        Path pack = dir.resolve("puzzles.pack");
+        Path index = dir.resolve("puzzles.idx");
+        Files.write(pack, new byte[64]);
+        Files.write(index, new byte[12]);
+
+        PuzzlePackStore store = new PuzzlePackStore(pack, index, 10 * IMAGE_BYTES);
+        assertEquals(0, store.size());
+        assertFalse(Files.exists(pack));
+
+        store.append(puzzle(0));
+        assertEquals(1, new PuzzlePackStore(pack, index, 10 * IMAGE_BYTES).size());
+    }
+
+    private long packFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("puzzles.pack")).count();
+        }
+    }
+
+    private static Puzzle puzzle(int n) {
+        byte[] image = new byte[IMAGE_BYTES];
+        image[0] = (byte) n;
+        return new Puzzle(new GameData("https://example.com/puzzle" + n + ".png", n % 10, n % 7), image);
+    }
+}
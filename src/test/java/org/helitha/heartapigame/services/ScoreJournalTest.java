@@ -0,0 +1,76 @@
+package org.helitha.heartapigame.services;
+
+import org.helitha.heartapigame.models.ScoreRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScoreJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void interleavedAppendsAreAllMadeDurable() throws Exception {
+        ScoreJournal journal = new ScoreJournal(dir.resolve("scores.journal"), dir.resolve("scores.ack"));
+
+        CompletableFuture<ScoreRecord> first = journal.append("p1", "alice", 10, "Easy", 1);
+        CompletableFuture<ScoreRecord> second = journal.append("p2", "bob", 20, "Easy", 2);
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).sequence());
+        assertEquals(2, second.get(5, TimeUnit.SECONDS).sequence());
+        assertEquals(2, journal.pendingCount());
+    }
+
+    @Test
+    void concurrentAppendsAreAllMadeDurable() throws Exception {
+        ScoreJournal journal = new ScoreJournal(dir.resolve("scores.journal"), dir.resolve("scores.ack"));
+
+        List<CompletableFuture<ScoreRecord>> appends = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int player = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    CompletableFuture<ScoreRecord> append = journal.append("p" + player, "player" + player, i, "Easy", i);
+                    synchronized (appends) {
+                        appends.add(append);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        CompletableFuture.allOf(appends.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertEquals(200, journal.pendingCount());
+    }
+
+    @Test
+    void replayRestoresUnacknowledgedScores() throws Exception {
+        Path journalPath = dir.resolve("scores.journal");
+        Path ackPath = dir.resolve("scores.ack");
+        ScoreJournal journal = new ScoreJournal(journalPath, ackPath);
+        journal.append("p1", "alice", 10, "Easy", 1).get(5, TimeUnit.SECONDS);
+        ScoreRecord second = journal.append("p2", "bob", 20, "Easy", 2).get(5, TimeUnit.SECONDS);
+        journal.acknowledge(1);
+        journal.whenAcknowledged(1).get(5, TimeUnit.SECONDS);
+        // Let the writer thread record the acknowledgement before reopening
+        journal.append("p3", "carol", 30, "Easy", 3).get(5, TimeUnit.SECONDS);
+
+        ScoreJournal reopened = new ScoreJournal(journalPath, ackPath);
+        List<ScoreRecord> pending = reopened.pending(10);
+        assertEquals(2, pending.size());
+        assertEquals(second.sequence(), pending.get(0).sequence());
+    }
+}
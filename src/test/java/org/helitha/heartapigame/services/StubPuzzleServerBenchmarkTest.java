@@ -0,0 +1,72 @@
+package org.helitha.heartapigame.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Run with: mvn test -Dtest=StubPuzzleServerBenchmarkTest -Dheartapi.benchmark=true
+@EnabledIfSystemProperty(named = "heartapi.benchmark", matches = "true")
+class StubPuzzleServerBenchmarkTest {
+
+    private static final int ROUNDS = Integer.getInteger("heartapi.benchmark.rounds", 200);
+    private static final int CONCURRENCY = Integer.getInteger("heartapi.benchmark.concurrency", 8);
+
+    @Test
+    void roundLoopThroughputAndTailLatency() throws IOException {
+        StubPuzzleServer stub = StubPuzzleServer.fromSystemProperties();
+        stub.start();
+        ApiService source = new ApiService(stub.getApiUri(), null);
+
+        long[] latenciesMs = new long[ROUNDS];
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService workerPool = Executors.newVirtualThreadPerTaskExecutor();
+        long startNs = System.nanoTime();
+
+        try {
+            CompletableFuture<?>[] workers = new CompletableFuture<?>[CONCURRENCY];
+            for (int w = 0; w < CONCURRENCY; w++) {
+                workers[w] = CompletableFuture.runAsync(() -> {
+                    int round;
+                    while ((round = next.getAndIncrement()) < ROUNDS) {
+                        long roundStart = System.nanoTime();
+                        try {
+                            source.fetchPuzzleAsync().join();
+                        } catch (RuntimeException e) {
+                            failures.incrementAndGet();
+                        }
+                        latenciesMs[round] = (System.nanoTime() - roundStart) / 1_000_000;
+                    }
+                }, workerPool);
+            }
+            CompletableFuture.allOf(workers).join();
+
+            double elapsedSeconds = (System.nanoTime() - startNs) / 1e9;
+            Arrays.sort(latenciesMs);
+            System.out.printf("Rounds: %d, concurrency: %d, failures: %d, stub requests: %d, injected errors: %d%n",
+                    ROUNDS, CONCURRENCY, failures.get(), stub.getRequestCount(), stub.getInjectedErrorCount());
+            System.out.printf("Throughput: %.1f rounds/s%n", ROUNDS / elapsedSeconds);
+            System.out.printf("Latency ms: p50=%d p95=%d p99=%d max=%d%n",
+                    percentile(latenciesMs, 0.50), percentile(latenciesMs, 0.95),
+                    percentile(latenciesMs, 0.99), latenciesMs[ROUNDS - 1]);
+            System.out.println(source.getDecodeAllocations());
+            System.out.println("Fetch latency " + source.getLatencies() + ", hedged requests: "
+                    + source.getHedgedRequestCount() + ", circuit: " + source.getCircuitState());
+            System.out.println("Transport " + HttpTransport.getInstance().getStats());
+        } finally {
+            workerPool.shutdown();
+            stub.stop();
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -0,0 +1,69 @@
+package org.helitha.heartapigame.services;
+
+import org.helitha.heartapigame.models.LeaderboardEntry;
+import org.helitha.heartapigame.models.ScoreRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopScoresCacheTest {
+
+    @Test
+    void changesDuringALoadAreReplayedOntoItsResult() {
+        TopScoresCache cache = new TopScoresCache(3);
+
+        cache.beginLoad("Easy");
+        // Lands after the query read the board but before its result is cached
+        cache.onBestChanged(new ScoreRecord(0, "c", "Cara", 90, 3, "Easy"));
+        cache.fill("Easy", List.of(new LeaderboardEntry("a", "Alice", 50), new LeaderboardEntry("b", "Bob", 40)));
+
+        assertEquals(List.of("Cara", "Alice", "Bob"), usernames(cache, 3));
+    }
+
+    @Test
+    void removalsDuringALoadAreReplayedOntoItsResult() {
+        TopScoresCache cache = new TopScoresCache(3);
+
+        cache.beginLoad("Easy");
+        cache.onBestRemoved("Easy", "a");
+        cache.fill("Easy", List.of(new LeaderboardEntry("a", "Alice", 50), new LeaderboardEntry("b", "Bob", 40)));
+
+        assertEquals(List.of("Bob"), usernames(cache, 3));
+    }
+
+    @Test
+    void laterFillDoesNotOverwriteAWarmPartition() {
+        TopScoresCache cache = new TopScoresCache(3);
+
+        cache.beginLoad("Easy");
+        cache.beginLoad("Easy");
+        cache.fill("Easy", List.of(new LeaderboardEntry("a", "Alice", 50)));
+        cache.onBestChanged(new ScoreRecord(0, "a", "Alice", 80, 2, "Easy"));
+        cache.fill("Easy", List.of(new LeaderboardEntry("a", "Alice", 50)));
+
+        assertEquals(80, cache.get("Easy", 1).orElseThrow().get(0).getScore());
+    }
+
+    @Test
+    void cancelledLoadLeavesThePartitionCold() {
+        TopScoresCache cache = new TopScoresCache(3);
+
+        cache.beginLoad("Easy");
+        cache.onBestChanged(new ScoreRecord(0, "a", "Alice", 80, 2, "Easy"));
+        cache.cancelLoad("Easy");
+
+        assertFalse(cache.isWarm("Easy"));
+        cache.beginLoad("Easy");
+        cache.fill("Easy", List.of(new LeaderboardEntry("b", "Bob", 40)));
+        assertTrue(cache.isWarm("Easy"));
+        assertEquals(List.of("Bob"), usernames(cache, 3));
+    }
+
+    private static List<String> usernames(TopScoresCache cache, int limit) {
+        return cache.get("Easy", limit).orElseThrow().stream().map(LeaderboardEntry::getUsername).toList();
+    }
+}
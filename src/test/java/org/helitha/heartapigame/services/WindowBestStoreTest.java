@@ -0,0 +1,85 @@
+package org.helitha.heartapigame.services;
+
+import com.google.cloud.firestore.FirestoreOptions;
+import org.helitha.heartapigame.models.LeaderboardEntry;
+import org.helitha.heartapigame.models.LeaderboardWindow;
+import org.helitha.heartapigame.models.ScoreRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WindowBestStoreTest {
+
+    private static final long DAY_MS = Duration.ofDays(1).toMillis();
+
+    @Test
+    void keepsOneBestPerPlayerDifficultyAndHour() {
+        long now = System.currentTimeMillis();
+        Map<String, ScoreRecord> bests = WindowBestStore.hourlyBests(List.of(
+                new ScoreRecord(1, "a", "Alice", 30, now, "Easy"),
+                new ScoreRecord(2, "a", "Alice", 50, now, "Easy"),
+                new ScoreRecord(3, "a", "Alice", 20, now, "Hard"),
+                new ScoreRecord(4, "a", "Alice", 10, now - 2 * DAY_MS, "Easy")));
+
+        assertEquals(3, bests.size());
+        assertEquals(50, bests.get(WindowBestStore.documentId(new ScoreRecord(0, "a", "Alice", 0, now, "Easy"))).score());
+    }
+
+    @Test
+    void playerWithAnOlderAllTimeBestStillRanksOnRollingBoards() {
+        String difficulty = "Easy-" + UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        List<ScoreRecord> history = List.of(
+                new ScoreRecord(1, "a", "Alice", 1000, now - 30 * DAY_MS, difficulty),
+                new ScoreRecord(2, "a", "Alice", 50, now - 60_000, difficulty),
+                new ScoreRecord(3, "b", "Bob", 40, now - 60_000, difficulty),
+                new ScoreRecord(4, "c", "Cara", 90, now - 3 * DAY_MS, difficulty));
+
+        WindowedLeaderboards windows = seed(WindowBestStore.hourlyBests(history).values());
+
+        assertEquals(List.of("Alice", "Bob"), usernames(windows.topScores(difficulty, LeaderboardWindow.DAILY, 10)));
+        assertEquals(List.of("Cara", "Alice", "Bob"),
+                usernames(windows.topScores(difficulty, LeaderboardWindow.WEEKLY, 10)));
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "FIRESTORE_EMULATOR_HOST", matches = ".+")
+    void seedsFromStoredHourlyBests() throws Exception {
+        WindowBestStore store = new WindowBestStore(FirestoreOptions.getDefaultInstance().toBuilder()
+                .setProjectId("demo-heart-api-game").build().getService());
+        String difficulty = "Easy-" + UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        store.recordBests(List.of(
+                new ScoreRecord(1, "a", "Alice", 1000, now - 30 * DAY_MS, difficulty),
+                new ScoreRecord(2, "a", "Alice", 50, now - 60_000, difficulty),
+                new ScoreRecord(3, "a", "Alice", 20, now - 30_000, difficulty)));
+
+        List<ScoreRecord> recent = store.loadSince(now - LeaderboardWindow.WEEKLY.getLength().toMillis()).stream()
+                .filter(record -> difficulty.equals(record.difficulty()))
+                .toList();
+        WindowedLeaderboards windows = seed(recent);
+
+        List<LeaderboardEntry> daily = windows.topScores(difficulty, LeaderboardWindow.DAILY, 10);
+        assertEquals(1, daily.size());
+        assertEquals(50, daily.get(0).getScore());
+    }
+
+    private static WindowedLeaderboards seed(Collection<ScoreRecord> bests) {
+        WindowedLeaderboards windows = new WindowedLeaderboards();
+        for (ScoreRecord best : bests) {
+            windows.accept(WindowBestStore.scoreId(WindowBestStore.documentId(best), best), best);
+        }
+        return windows;
+    }
+
+    private static List<String> usernames(List<LeaderboardEntry> entries) {
+        return entries.stream().map(LeaderboardEntry::getUsername).toList();
+    }
+}